@@ -2,7 +2,10 @@ package src.main.java.com.googleintern.wfm.ruleengine.action;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PackedFilterGroup;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
@@ -28,6 +31,37 @@ public class CasePoolIdAndPermissionIdGroupingUtil {
     return filtersByCasePoolIdAndPermissionSetIdBuilder.build();
   }
 
+  /**
+   * Group data from the same workgroup by (Case Pool ID, Permission Set ID) as {@link
+   * #groupByCasePoolIdAndPermissionSetId(List)} does, with each filter group stored as a {@link
+   * PackedFilterGroup}. Filter groups with the same filters in a different order are one entry.
+   */
+  public static ImmutableSetMultimap<PoolAssignmentModel, PackedFilterGroup>
+      groupPackedFiltersByCasePoolIdAndPermissionSetId(List<UserModel> dataFromSameWorkGroupId) {
+    return groupPackedFiltersByCasePoolIdAndPermissionSetId(
+        dataFromSameWorkGroupId, Interners.newStrongInterner());
+  }
+
+  /**
+   * Group data from the same workgroup by (Case Pool ID, Permission Set ID) with each filter group
+   * replaced by its canonical instance from filterGroupInterner. Sharing one interner across
+   * workgroups lets equal filter groups from different workgroups share one instance too.
+   */
+  public static ImmutableSetMultimap<PoolAssignmentModel, PackedFilterGroup>
+      groupPackedFiltersByCasePoolIdAndPermissionSetId(
+          List<UserModel> dataFromSameWorkGroupId,
+          Interner<PackedFilterGroup> filterGroupInterner) {
+    ImmutableSetMultimap.Builder<PoolAssignmentModel, PackedFilterGroup>
+        filtersByCasePoolIdAndPermissionSetIdBuilder = ImmutableSetMultimap.builder();
+    for (UserModel data : dataFromSameWorkGroupId) {
+      PackedFilterGroup filters = filterGroupInterner.intern(PackedFilterGroup.fromUser(data));
+      for (PoolAssignmentModel permission : data.poolAssignments()) {
+        filtersByCasePoolIdAndPermissionSetIdBuilder.put(permission, filters);
+      }
+    }
+    return filtersByCasePoolIdAndPermissionSetIdBuilder.build();
+  }
+
   private static ImmutableList<FilterModel> convertSkillIdRoleIdToFilter(
       UserModel user) {
     ImmutableList.Builder<FilterModel> filtersBuilder = ImmutableList.builder();
@@ -0,0 +1,107 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompactUserModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * ConflictRemovalBenchmark class is used to time the two ways {@link DataProcessor} checks one
+ * partition for conflict users, comparing every pair of users or looking up a {@link SetTrie},
+ * over a range of partition sizes. DataProcessor.MIN_PARTITION_SIZE_FOR_SET_TRIE is set from the
+ * partition size where the trie becomes faster.
+ *
+ * <p>Users get random role, skill and role skill IDs and pool assignments from small ranges, so
+ * partitions hold both conflict users and users whose IDs are subsets of each other.
+ */
+public class ConflictRemovalBenchmark {
+  private static final ImmutableList<Integer> PARTITION_SIZES =
+      ImmutableList.of(8, 16, 32, 64, 80, 96, 112, 128, 256, 512, 1024, 2048, 4096);
+  private static final int NUMBER_OF_ROLE_IDS = 8;
+  private static final int NUMBER_OF_SKILL_IDS = 24;
+  private static final int NUMBER_OF_PERMISSION_SET_IDS = 4;
+  private static final long MIN_MEASUREMENT_NANOS = 200_000_000L;
+  private static final int NUMBER_OF_MEASUREMENTS = 5;
+
+  public static void main(String[] args) {
+    Random random = new Random(2020L);
+    System.out.printf("%10s %18s %18s%n", "users", "all pairs (us)", "set trie (us)");
+    for (int partitionSize : PARTITION_SIZES) {
+      ImmutableList<CompactUserModel> partition = createPartition(partitionSize, random);
+      Preconditions.checkState(
+          DataProcessor.findConflictUserIdPairsByComparingAllUsers(partition)
+              .equals(DataProcessor.findConflictUserIdPairsWithSetTrie(partition)),
+          "Both ways must find the same conflict users.");
+      System.out.printf(
+          "%10d %18.1f %18.1f%n",
+          partitionSize,
+          measureMicros(DataProcessor::findConflictUserIdPairsByComparingAllUsers, partition),
+          measureMicros(DataProcessor::findConflictUserIdPairsWithSetTrie, partition));
+    }
+  }
+
+  /** Return the fastest of several measurements of the mean time of one call, in microseconds. */
+  static double measureMicros(
+      Function<List<CompactUserModel>, ImmutableSet<Long>> conflictFinder,
+      List<CompactUserModel> partition) {
+    double bestMicros = Double.MAX_VALUE;
+    for (int measurement = 0; measurement < NUMBER_OF_MEASUREMENTS; measurement++) {
+      long startNanos = System.nanoTime();
+      long elapsedNanos;
+      int numberOfCalls = 0;
+      do {
+        conflictFinder.apply(partition);
+        numberOfCalls++;
+        elapsedNanos = System.nanoTime() - startNanos;
+      } while (elapsedNanos < MIN_MEASUREMENT_NANOS);
+      bestMicros = Math.min(bestMicros, elapsedNanos / 1000.0 / numberOfCalls);
+    }
+    return bestMicros;
+  }
+
+  static ImmutableList<CompactUserModel> createPartition(int partitionSize, Random random) {
+    ImmutableList.Builder<CompactUserModel> partitionBuilder = ImmutableList.builder();
+    for (int userId = 0; userId < partitionSize; userId++) {
+      ImmutableSet.Builder<PoolAssignmentModel> poolAssignmentsBuilder = ImmutableSet.builder();
+      for (long permissionSetId = 0;
+          permissionSetId < NUMBER_OF_PERMISSION_SET_IDS;
+          permissionSetId++) {
+        if (random.nextBoolean()) {
+          poolAssignmentsBuilder.add(
+              PoolAssignmentModel.builder()
+                  .setCasePoolId(2000543L)
+                  .setPermissionSetId(permissionSetId)
+                  .build());
+        }
+      }
+      partitionBuilder.add(
+          CompactUserModel.of(
+              UserModel.builder()
+                  .setUserId(userId)
+                  .setWorkforceId(1024L)
+                  .setWorkgroupId(2048L)
+                  .setRoleIds(createRandomIds(NUMBER_OF_ROLE_IDS, 1, random))
+                  .setSkillIds(createRandomIds(NUMBER_OF_SKILL_IDS, 3, random))
+                  .setRoleSkillIds(createRandomIds(NUMBER_OF_SKILL_IDS, 1, random))
+                  .setPoolAssignments(poolAssignmentsBuilder.build())
+                  .build()));
+    }
+    return partitionBuilder.build();
+  }
+
+  /** Return up to maxNumberOfIds distinct random IDs in [0, numberOfIds). */
+  private static ImmutableList<Long> createRandomIds(
+      int numberOfIds, int maxNumberOfIds, Random random) {
+    ImmutableSet.Builder<Long> idsBuilder = ImmutableSet.builder();
+    for (int index = random.nextInt(maxNumberOfIds + 1); index > 0; index--) {
+      idsBuilder.add((long) random.nextInt(numberOfIds));
+    }
+    return idsBuilder.build().asList();
+  }
+}
@@ -2,29 +2,35 @@ package src.main.java.com.googleintern.wfm.ruleengine.action;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableLongArray;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvException;
+import com.opencsv.exceptions.CsvValidationException;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 /**
  * CsvParser class is used to retrieve information from the input csv file ans store these data as
  * instances of UserPoolAssignmentModel.
  *
  * <p>enum variable Header represents the relationship between column position and the data stored
- * inside. Pattern variable NUMBER_PATTERN finds numbers from strings. Pattern variable
- * ROLESKILL_PATTERN finds skill_id elements from strings. Pattern variable PERMISSION_PATTERN finds
- * pool_permission elements from strings.
+ * inside. ID columns are scanned by {@link IdColumnScanner}.
  */
 public class CsvParser {
   enum Header {
@@ -43,11 +49,6 @@ public class CsvParser {
     }
   }
 
-  private static final Pattern NUMBER_PATTERN = Pattern.compile("(\\d+)");
-  private static final Pattern ROLESKILL_PATTERN = Pattern.compile("\"skill_id\":\"(\\d+)\"");
-  private static final Pattern PERMISSION_PATTERN =
-      Pattern.compile("\"cases_pool_id\":\"(\\d+)\",\"permission_set_id\":\"(\\d+)\"");
-
   /**
    * Read all data using csvFilePath. Parse useful information out and store it in *
    * userPoolAssignmentList.
@@ -57,23 +58,117 @@ public class CsvParser {
    */
   public static ImmutableList<UserModel> readFromCSVFile(String csvFilePath)
       throws IOException, CsvException {
-    // Read all data from input csv file located at given path
-    Reader reader = Files.newBufferedReader(Paths.get(csvFilePath));
-    CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(1).build();
-    List<String[]> userRecords = csvReader.readAll();
-
-    return userRecords.stream()
-        .map(record -> parseData(record))
-        .collect(ImmutableList.toImmutableList());
+    return readFromCSVFile(csvFilePath, user -> true);
+  }
+
+  /**
+   * Read data using csvFilePath and keep only users accepted by userFilter. Records are parsed one
+   * at a time, so rejected users and raw csv rows never accumulate in memory.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(
+      String csvFilePath, Predicate<UserModel> userFilter) throws IOException, CsvException {
+    return readFromReader(Files.newBufferedReader(Paths.get(csvFilePath)), 1, userFilter);
+  }
+
+  /**
+   * Read csv records from reader after skipping the first skipLines lines and keep only users
+   * accepted by userFilter. The reader is closed afterwards.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromReader(
+      Reader reader, int skipLines, Predicate<UserModel> userFilter)
+      throws IOException, CsvException {
+    try (Stream<UserModel> users = streamFromReader(reader, skipLines)) {
+      return users.filter(userFilter).collect(toImmutableList());
+    } catch (UncheckedIOException exception) {
+      throw exception.getCause();
+    } catch (UncheckedCsvException exception) {
+      throw exception.getCause();
+    }
+  }
+
+  /**
+   * Lazily read data using csvFilePath. Each csv record is parsed into a {@link UserModel} only
+   * when the stream pulls it. The returned stream keeps the input file open and must be closed by
+   * the caller. Reading failures are thrown as {@link UncheckedIOException} or {@link
+   * UncheckedCsvException}.
+   *
+   * @throws IOException
+   */
+  public static Stream<UserModel> streamFromCSVFile(String csvFilePath) throws IOException {
+    return streamFromReader(Files.newBufferedReader(Paths.get(csvFilePath)), 1);
+  }
+
+  /**
+   * Lazily read csv records from reader after skipping the first skipLines lines. The returned
+   * stream closes reader when it is closed.
+   */
+  public static Stream<UserModel> streamFromReader(Reader reader, int skipLines) {
+    CSVReader csvReader = new CSVReaderBuilder(reader).withSkipLines(skipLines).build();
+    return StreamSupport.stream(new UserSpliterator(csvReader), /* parallel= */ false)
+        .onClose(
+            () -> {
+              try {
+                csvReader.close();
+              } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+              }
+            });
+  }
+
+  /** UncheckedCsvException class is used to carry a {@link CsvException} out of a stream. */
+  public static class UncheckedCsvException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    UncheckedCsvException(CsvException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized CsvException getCause() {
+      return (CsvException) super.getCause();
+    }
+  }
+
+  /** UserSpliterator class is used to parse one csv record per advance. */
+  private static class UserSpliterator extends Spliterators.AbstractSpliterator<UserModel> {
+    private final CSVReader csvReader;
+
+    UserSpliterator(CSVReader csvReader) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      this.csvReader = csvReader;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super UserModel> action) {
+      String[] record;
+      try {
+        record = csvReader.readNext();
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      } catch (CsvValidationException exception) {
+        throw new UncheckedCsvException(exception);
+      }
+      if (record == null) {
+        return false;
+      }
+      action.accept(parseData(record));
+      return true;
+    }
   }
 
   private static UserModel parseData(String[] record) {
     long userId = Long.parseLong(record[Header.USER_ID.column]);
     long workforceId = Long.parseLong(record[Header.WORKFORCE_ID.column]);
     long workgroupId = Long.parseLong(record[Header.WORKGROUP_ID.column]);
-    ImmutableList<Long> roleIds = parseRoleIds(record[Header.ROLE_ID.column]);
-    ImmutableList<Long> skillIds = parseSkillIds(record[Header.SKILL_ID.column]);
-    ImmutableList<Long> roleSkillIds = parseRoleSkillIds(record[Header.ROLESKILL_ID.column]);
+    ImmutableLongArray roleIds = parseRoleIds(record[Header.ROLE_ID.column]);
+    ImmutableLongArray skillIds = parseSkillIds(record[Header.SKILL_ID.column]);
+    ImmutableLongArray roleSkillIds = parseRoleSkillIds(record[Header.ROLESKILL_ID.column]);
     Set<PoolAssignmentModel> poolAssignments =
         parsePoolAssignments(record[Header.POOL_ASSIGNMENT.column]);
 
@@ -81,65 +176,41 @@ public class CsvParser {
         .setUserId(userId)
         .setWorkforceId(workforceId)
         .setWorkgroupId(workgroupId)
-        .setRoleIds(roleIds)
-        .setSkillIds(skillIds)
-        .setRoleSkillIds(roleSkillIds)
+        .setRoleIds(roleIds.asList())
+        .setSkillIds(skillIds.asList())
+        .setRoleSkillIds(roleSkillIds.asList())
         .setPoolAssignments(poolAssignments)
         .build();
   }
 
-  private static ImmutableList<Long> parseRoleIds(String roleIdData) {
-    Matcher roleIdsMatcher = NUMBER_PATTERN.matcher(roleIdData);
-    ImmutableList.Builder<Long> roleIdsBuilder = ImmutableList.builder();
-    while (roleIdsMatcher.find()) {
-      long idValue = Long.parseLong(roleIdsMatcher.group());
-      roleIdsBuilder.add(idValue);
-    }
+  private static ImmutableLongArray parseRoleIds(String roleIdData) {
+    ImmutableLongArray.Builder roleIdsBuilder = ImmutableLongArray.builder();
+    IdColumnScanner.scanNumbers(roleIdData, roleIdsBuilder::add);
     return roleIdsBuilder.build();
   }
 
-  private static ImmutableList<Long> parseSkillIds(String skillIdData) {
-    Matcher skillIdsMatcher = NUMBER_PATTERN.matcher(skillIdData);
-    ImmutableList.Builder<Long> skillIdsBuilder = ImmutableList.builder();
-    while (skillIdsMatcher.find()) {
-      long idValue = Long.parseLong(skillIdsMatcher.group());
-      skillIdsBuilder.add(idValue);
-    }
+  private static ImmutableLongArray parseSkillIds(String skillIdData) {
+    ImmutableLongArray.Builder skillIdsBuilder = ImmutableLongArray.builder();
+    IdColumnScanner.scanNumbers(skillIdData, skillIdsBuilder::add);
     return skillIdsBuilder.build();
   }
 
-  private static ImmutableList<Long> parseRoleSkillIds(String roleSkillIdData) {
-    Matcher roleSKillsMatcher = ROLESKILL_PATTERN.matcher(roleSkillIdData);
-    ImmutableList.Builder<Long> roleSkillIdsBuilder = ImmutableList.builder();
-    while (roleSKillsMatcher.find()) {
-      String skillId = roleSKillsMatcher.group();
-      Matcher roleSkillIdMatcher = NUMBER_PATTERN.matcher(skillId);
-      roleSkillIdMatcher.find();
-      long idValue = Long.parseLong(roleSkillIdMatcher.group());
-      roleSkillIdsBuilder.add(idValue);
-    }
+  private static ImmutableLongArray parseRoleSkillIds(String roleSkillIdData) {
+    ImmutableLongArray.Builder roleSkillIdsBuilder = ImmutableLongArray.builder();
+    IdColumnScanner.scanRoleSkillIds(roleSkillIdData, roleSkillIdsBuilder::add);
     return roleSkillIdsBuilder.build();
   }
 
   private static ImmutableSet<PoolAssignmentModel> parsePoolAssignments(String poolAssignmentData) {
-    Matcher permissionsMatcher = PERMISSION_PATTERN.matcher(poolAssignmentData);
     ImmutableSet.Builder<PoolAssignmentModel> poolAssignmentsBuilder = ImmutableSet.builder();
-    while (permissionsMatcher.find()) {
-      String permission = permissionsMatcher.group();
-      Matcher idsForPermission = NUMBER_PATTERN.matcher(permission);
-      if (idsForPermission.find()) {
-        int poolId = Integer.parseInt(idsForPermission.group());
-        if (idsForPermission.find()) {
-          int permissionId = Integer.parseInt(idsForPermission.group());
-          PoolAssignmentModel poolAssignment =
-              PoolAssignmentModel.builder()
-                  .setCasePoolId(poolId)
-                  .setPermissionSetId(permissionId)
-                  .build();
-          poolAssignmentsBuilder.add(poolAssignment);
-        }
-      }
-    }
+    IdColumnScanner.scanPoolAssignments(
+        poolAssignmentData,
+        (casePoolId, permissionSetId) ->
+            poolAssignmentsBuilder.add(
+                PoolAssignmentModel.builder()
+                    .setCasePoolId(casePoolId)
+                    .setPermissionSetId(permissionSetId)
+                    .build()));
     return poolAssignmentsBuilder.build();
   }
 }
@@ -1,18 +1,48 @@
 package src.main.java.com.googleintern.wfm.ruleengine.action;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompactUserModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserEquivalenceClassModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.util.stream.Collectors.toSet;
 
-/** DataProcessor class is used to filter out conflict data. */
+/**
+ * DataProcessor class is used to filter out conflict data.
+ *
+ * <p>Conflict users always share the same workforce ID and workgroup ID, so users are split into
+ * partitions by (workforce ID, workgroup ID) and each partition is checked on its own. When user
+ * IDs are not unique, all users are checked as one partition, since skipping a conflict user ID
+ * then affects other partitions as well.
+ *
+ * <p>Partitions with at least MIN_PARTITION_SIZE_FOR_SET_TRIE users are checked with a {@link
+ * SetTrie} over the role/skill/role skill IDs of each user, so only users whose IDs are a subset of
+ * the current user's IDs are compared. Smaller partitions compare every pair of users.
+ */
 public class DataProcessor {
+  /** Partition size where the trie overtakes comparing all pairs in ConflictRemovalBenchmark. */
+  private static final int MIN_PARTITION_SIZE_FOR_SET_TRIE = 96;
+  private static final int NUMBER_OF_ID_TYPES = 3;
+  private static final int ROLE_ID_TYPE = 0;
+  private static final int SKILL_ID_TYPE = 1;
+  private static final int ROLESKILL_ID_TYPE = 2;
+
   /**
    * Filter out conflict user data. Conflict users are users with less role/skill ids but more
    * assigned permissions. This function is used when we want final generated rules to assign less
@@ -27,28 +57,181 @@ public class DataProcessor {
    * that is not included in User 0.
    */
   public static ImmutableList<UserModel> removeConflictUsers(List<UserModel> rawUserData) {
-    ImmutableSet<Long> coveredConflictUsers = findConflictUserIdPairs(rawUserData);
+    ImmutableSet<Long> coveredConflictUsers =
+        partitionByWorkforceIdAndWorkgroupId(rawUserData).stream()
+            .flatMap(partition -> findConflictUserIdPairs(partition).stream())
+            .collect(toImmutableSet());
+    return removeUsers(rawUserData, coveredConflictUsers);
+  }
+
+  /**
+   * Filter out conflict user data as {@link #removeConflictUsers(List)} does, checking the
+   * partitions in parallel on pool. Larger partitions are submitted first.
+   */
+  public static ImmutableList<UserModel> removeConflictUsers(
+      List<UserModel> rawUserData, ForkJoinPool pool) {
+    ImmutableList<Supplier<ImmutableSet<Long>>> conflictCheckingTasks =
+        partitionByWorkforceIdAndWorkgroupId(rawUserData).stream()
+            .sorted(Comparator.comparingInt(List<CompactUserModel>::size).reversed())
+            .map(
+                partition ->
+                    (Supplier<ImmutableSet<Long>>) () -> findConflictUserIdPairs(partition))
+            .collect(toImmutableList());
+    ImmutableSet<Long> coveredConflictUsers =
+        ParallelTaskRunner.supplyAll(pool, conflictCheckingTasks).stream()
+            .flatMap(Set::stream)
+            .collect(toImmutableSet());
+    return removeUsers(rawUserData, coveredConflictUsers);
+  }
+
+  /**
+   * Filter out conflict user classes. Users of one class are either all conflict users or none, and
+   * a class only needs to be checked at the position of its first member, so the representatives
+   * are checked in place of all users.
+   */
+  public static ImmutableList<UserEquivalenceClassModel> removeConflictUserClasses(
+      List<UserEquivalenceClassModel> userClasses) {
+    return removeUserClasses(
+        userClasses, removeConflictUsers(UserDeduplication.representatives(userClasses)));
+  }
+
+  /**
+   * Filter out conflict user classes as {@link #removeConflictUserClasses(List)} does, checking the
+   * partitions in parallel on pool.
+   */
+  public static ImmutableList<UserEquivalenceClassModel> removeConflictUserClasses(
+      List<UserEquivalenceClassModel> userClasses, ForkJoinPool pool) {
+    return removeUserClasses(
+        userClasses, removeConflictUsers(UserDeduplication.representatives(userClasses), pool));
+  }
+
+  private static ImmutableList<UserEquivalenceClassModel> removeUserClasses(
+      List<UserEquivalenceClassModel> userClasses, ImmutableList<UserModel> keptRepresentatives) {
+    ImmutableSet<Long> keptUserIds =
+        keptRepresentatives.stream().map(UserModel::userId).collect(toImmutableSet());
+    return userClasses.stream()
+        .filter(userClass -> keptUserIds.contains(userClass.representative().userId()))
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableList<UserModel> removeUsers(
+      List<UserModel> rawUserData, ImmutableSet<Long> removedUserIds) {
     return rawUserData.stream()
-        .filter(user -> !coveredConflictUsers.contains(user.userId()))
+        .filter(user -> !removedUserIds.contains(user.userId()))
+        .collect(toImmutableList());
+  }
+
+  /** Split users by (workforce ID, workgroup ID), keeping the input order inside each partition. */
+  private static ImmutableList<ImmutableList<CompactUserModel>>
+      partitionByWorkforceIdAndWorkgroupId(List<UserModel> rawUserData) {
+    ImmutableList<CompactUserModel> compactUsers =
+        rawUserData.stream().map(CompactUserModel::of).collect(toImmutableList());
+    if (!UserDeduplication.hasUniqueUserIds(rawUserData)) {
+      return ImmutableList.of(compactUsers);
+    }
+    ImmutableListMultimap<ImmutableList<Long>, CompactUserModel> usersByPartition =
+        compactUsers.stream()
+            .collect(
+                toImmutableListMultimap(
+                    user -> ImmutableList.of(user.workforceId(), user.workgroupId()),
+                    user -> user));
+    return usersByPartition.keySet().stream()
+        .map(usersByPartition::get)
         .collect(toImmutableList());
   }
 
-  private static ImmutableSet<Long> findConflictUserIdPairs(List<UserModel> rawUserData) {
+  private static ImmutableSet<Long> findConflictUserIdPairs(List<CompactUserModel> compactUsers) {
+    return compactUsers.size() < MIN_PARTITION_SIZE_FOR_SET_TRIE
+        ? findConflictUserIdPairsByComparingAllUsers(compactUsers)
+        : findConflictUserIdPairsWithSetTrie(compactUsers);
+  }
+
+  static ImmutableSet<Long> findConflictUserIdPairsByComparingAllUsers(
+      List<CompactUserModel> compactUsers) {
     Set<Long> dirtyUsers = new HashSet<Long>();
 
-    for (UserModel currentUser : rawUserData) {
+    for (CompactUserModel currentUser : compactUsers) {
       if (dirtyUsers.contains(currentUser.userId())) {
         continue;
       }
       dirtyUsers.addAll(
-          rawUserData.stream()
+          compactUsers.stream()
               .filter(
                   comparedUser ->
                       !dirtyUsers.contains(comparedUser.userId())
                           && currentUser.isAConflictUser(comparedUser))
-              .map(UserModel::userId)
+              .map(CompactUserModel::userId)
               .collect(toSet()));
     }
     return ImmutableSet.copyOf(dirtyUsers);
   }
+
+  /**
+   * Same result as findConflictUserIdPairsByComparingAllUsers. Only users whose IDs are a subset of
+   * the current user's IDs can be conflict users, and these are found in the {@link SetTrie}.
+   * Conflict users are removed from the index once found, since they are skipped afterwards.
+   */
+  static ImmutableSet<Long> findConflictUserIdPairsWithSetTrie(
+      List<CompactUserModel> compactUsers) {
+    int[][] idSets = encodeIdSets(compactUsers);
+    SetTrie<Integer> usersByIds = new SetTrie<>();
+    for (int userIndex = 0; userIndex < compactUsers.size(); userIndex++) {
+      usersByIds.add(idSets[userIndex], userIndex);
+    }
+    Set<Long> dirtyUsers = new HashSet<Long>();
+    List<Integer> conflictUsers = new ArrayList<>();
+
+    for (int userIndex = 0; userIndex < compactUsers.size(); userIndex++) {
+      CompactUserModel currentUser = compactUsers.get(userIndex);
+      if (dirtyUsers.contains(currentUser.userId())) {
+        continue;
+      }
+      conflictUsers.clear();
+      usersByIds.forEachSubsetOf(
+          idSets[userIndex],
+          comparedUserIndex -> {
+            CompactUserModel comparedUser = compactUsers.get(comparedUserIndex);
+            if (!dirtyUsers.contains(comparedUser.userId())
+                && currentUser.isAConflictUser(comparedUser)) {
+              conflictUsers.add(comparedUserIndex);
+            }
+          });
+      for (int conflictUserIndex : conflictUsers) {
+        dirtyUsers.add(compactUsers.get(conflictUserIndex).userId());
+        usersByIds.remove(idSets[conflictUserIndex], conflictUserIndex);
+      }
+    }
+    return ImmutableSet.copyOf(dirtyUsers);
+  }
+
+  /**
+   * Map every (ID type, ID) of the users to a distinct int and return the sorted ints of each user.
+   * Role IDs, skill IDs and role skill IDs get separate codes, as isAConflictUser compares them
+   * separately.
+   */
+  private static int[][] encodeIdSets(List<CompactUserModel> compactUsers) {
+    Map<Long, Integer> roleIdCodes = new HashMap<>();
+    Map<Long, Integer> skillIdCodes = new HashMap<>();
+    Map<Long, Integer> roleSkillIdCodes = new HashMap<>();
+    int[][] idSets = new int[compactUsers.size()][];
+    for (int userIndex = 0; userIndex < compactUsers.size(); userIndex++) {
+      UserModel user = compactUsers.get(userIndex).user();
+      idSets[userIndex] =
+          IntStream.concat(
+                  IntStream.concat(
+                      encodeIds(user.roleIds(), roleIdCodes, ROLE_ID_TYPE),
+                      encodeIds(user.skillIds(), skillIdCodes, SKILL_ID_TYPE)),
+                  encodeIds(user.roleSkillIds(), roleSkillIdCodes, ROLESKILL_ID_TYPE))
+              .sorted()
+              .distinct()
+              .toArray();
+    }
+    return idSets;
+  }
+
+  private static IntStream encodeIds(List<Long> ids, Map<Long, Integer> idCodes, int idType) {
+    return ids.stream()
+        .mapToInt(id -> idCodes.computeIfAbsent(id, newId -> idCodes.size()))
+        .map(code -> code * NUMBER_OF_ID_TYPES + idType);
+  }
 }
@@ -4,17 +4,26 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.SetMultimap;
 import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PackedFilterGroup;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-
-import static com.google.common.collect.ImmutableList.toImmutableList;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * FiltersReduction class is used to minimize/reduce/simplify the filters set for each {@link
  * PoolAssignmentModel}.
+ *
+ * <p>The reduced filter groups are the minimal groups: groups that have no other group as a
+ * subset. Groups are checked from the smallest to the largest, and the minimal groups found so far
+ * are kept in a {@link SetTrie}. A group is minimal if the trie holds no subset of it, so each
+ * check only walks the trie paths that match the group.
  */
 public class FiltersReduction {
   /**
@@ -31,53 +40,89 @@ public class FiltersReduction {
    *       if the filters for permission x is {{a, b}, {a, b, c}}, this means x = a * b + a * b *
    *       c). There is no negative filter. (e.g. all the filters are ones that can lead to the
    *       assignment)
-   *   <li>Step 2: For each filter group, call the updateReducedFilters function to update the
-   *       reducedFilters list.
-   *   <li>Step 3: Return the reduced filter groups.
+   *   <li>Step 2: Merge filter groups with the same filters. Keep the last one, since it decides
+   *       the position and the filter order of the reduced group.
+   *   <li>Step 3: Sort the merged groups by size and keep the groups that have no smaller group as
+   *       a subset.
+   *   <li>Step 4: Return the reduced filter groups in the order of their last occurrence.
    * </ol>
    */
   public static ImmutableList<ImmutableSet<FilterModel>> reduce(
       SetMultimap<PoolAssignmentModel, ImmutableList<FilterModel>> filtersByPoolAssignments,
       PoolAssignmentModel targetPoolAssignment) {
-    Set<ImmutableList<FilterModel>> filters = filtersByPoolAssignments.get(targetPoolAssignment);
-    List<ImmutableSet<FilterModel>> reducedFilters = new ArrayList<>();
-    for (ImmutableList<FilterModel> currentFilters : filters) {
-      reducedFilters = updateReducedFilters(reducedFilters, currentFilters);
+    ImmutableList.Builder<ImmutableSet<FilterModel>> reducedFiltersBuilder =
+        ImmutableList.builder();
+    for (ImmutableList<FilterModel> filters :
+        findMinimalFilterGroups(
+            filtersByPoolAssignments.get(targetPoolAssignment), PackedFilterGroup::fromFilters)) {
+      reducedFiltersBuilder.add(ImmutableSet.copyOf(filters));
     }
-    return ImmutableList.copyOf(reducedFilters);
+    return reducedFiltersBuilder.build();
   }
 
   /**
-   * Update the reducedFilters list using the input parameter currentFilters
-   *
-   * <p>Steps:
-   *
-   * <ol>
-   *   <li>Step 1: Find all filter groups in the reducedFilters list that can be covered by the
-   *       currentFilters. Store results in filtersContainingCurrentFilters list.
-   *   <li>Step 2: Check whether there exists filter groups in the reducedFilters list that cover
-   *       the currentFilters. Store result in the boolean variable
-   *       isCurrentFiltersCoveredByReducedFilters.
-   *   <li>Step 3: If the current filter is completely redundant to the reduced list, then do not
-   *       update the list. Update the reducedFilters list when: (1) The currentFilter overlaps with
-   *       the reduced filter list and it contains less filters(filtersContainingCurrentFilters list
-   *       is not empty); (2) The currentFilter is mutually exclusive to the reduced
-   *       list(isCurrentFiltersCoveredByReducedFilters is false).
-   *   <li>Step 4: Return the updated reducedFilters list.
-   * </ol>
+   * Find out all minimized common filter groups for the target {@link PoolAssignmentModel} as
+   * {@link #reduce(SetMultimap, PoolAssignmentModel)} does, with filter groups given as {@link
+   * PackedFilterGroup}.
+   */
+  public static ImmutableList<PackedFilterGroup> reducePackedFilters(
+      SetMultimap<PoolAssignmentModel, PackedFilterGroup> filtersByPoolAssignments,
+      PoolAssignmentModel targetPoolAssignment) {
+    return findMinimalFilterGroups(
+        filtersByPoolAssignments.get(targetPoolAssignment), Function.identity());
+  }
+
+  /**
+   * Return the filter groups whose filters have no other group's filters as a strict subset. Of
+   * groups with the same filters, only the last is returned. Groups are returned in input order.
    */
-  private static List<ImmutableSet<FilterModel>> updateReducedFilters(
-      List<ImmutableSet<FilterModel>> reducedFilters, ImmutableList<FilterModel> currentFilters) {
-    ImmutableList<ImmutableSet<FilterModel>> filtersContainingCurrentFilters =
-        reducedFilters.stream()
-            .filter(filters -> filters.containsAll(currentFilters))
-            .collect(toImmutableList());
-    boolean isCurrentFiltersCoveredByReducedFilters =
-        reducedFilters.stream().anyMatch(filters -> currentFilters.containsAll(filters));
-    if (!filtersContainingCurrentFilters.isEmpty() || !isCurrentFiltersCoveredByReducedFilters) {
-      reducedFilters.removeAll(filtersContainingCurrentFilters);
-      reducedFilters.add(ImmutableSet.copyOf(currentFilters));
+  private static <T> ImmutableList<T> findMinimalFilterGroups(
+      Iterable<T> filterGroups, Function<T, PackedFilterGroup> toPackedFilterGroup) {
+    Map<PackedFilterGroup, T> lastFilterGroupsByFilters = new LinkedHashMap<>();
+    for (T filterGroup : filterGroups) {
+      PackedFilterGroup filters = toPackedFilterGroup.apply(filterGroup);
+      lastFilterGroupsByFilters.remove(filters);
+      lastFilterGroupsByFilters.put(filters, filterGroup);
+    }
+    List<PackedFilterGroup> distinctFilters = new ArrayList<>(lastFilterGroupsByFilters.keySet());
+    int[][] encodedFilters = encodeFilters(distinctFilters);
+    Integer[] indexesBySize = new Integer[distinctFilters.size()];
+    Arrays.setAll(indexesBySize, index -> index);
+    Arrays.sort(indexesBySize, Comparator.comparingInt(index -> encodedFilters[index].length));
+
+    SetTrie<Integer> minimalFilters = new SetTrie<>();
+    boolean[] isMinimal = new boolean[distinctFilters.size()];
+    for (int index : indexesBySize) {
+      if (!minimalFilters.containsSubsetOf(encodedFilters[index])) {
+        minimalFilters.add(encodedFilters[index], index);
+        isMinimal[index] = true;
+      }
+    }
+
+    ImmutableList.Builder<T> minimalFilterGroupsBuilder = ImmutableList.builder();
+    for (int index = 0; index < distinctFilters.size(); index++) {
+      if (isMinimal[index]) {
+        minimalFilterGroupsBuilder.add(lastFilterGroupsByFilters.get(distinctFilters.get(index)));
+      }
+    }
+    return minimalFilterGroupsBuilder.build();
+  }
+
+  /** Map every packed filter to a dense int code and return each group as sorted codes. */
+  private static int[][] encodeFilters(List<PackedFilterGroup> filterGroups) {
+    Map<Long, Integer> codesByPackedFilter = new HashMap<>();
+    int[][] encodedFilters = new int[filterGroups.size()][];
+    for (int groupIndex = 0; groupIndex < filterGroups.size(); groupIndex++) {
+      PackedFilterGroup filters = filterGroups.get(groupIndex);
+      int[] codes = new int[filters.size()];
+      for (int filterIndex = 0; filterIndex < filters.size(); filterIndex++) {
+        codes[filterIndex] =
+            codesByPackedFilter.computeIfAbsent(
+                filters.packedFilter(filterIndex), packedFilter -> codesByPackedFilter.size());
+      }
+      Arrays.sort(codes);
+      encodedFilters[groupIndex] = codes;
     }
-    return reducedFilters;
+    return encodedFilters;
   }
 }
@@ -0,0 +1,116 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import java.util.function.LongConsumer;
+
+/**
+ * IdColumnScanner class is used to extract ID numbers from the JSON-like columns of the input csv
+ * file in a single pass over the characters.
+ *
+ * <p>IDs are accumulated digit by digit into primitive longs and handed to the caller, so no
+ * intermediate strings or regex matchers are created. String constants ROLESKILL_KEY,
+ * CASES_POOL_KEY and PERMISSION_SET_KEY are the tokens that precede the quoted ID values.
+ */
+public class IdColumnScanner {
+  private static final String ROLESKILL_KEY = "\"skill_id\":\"";
+  private static final String CASES_POOL_KEY = "\"cases_pool_id\":\"";
+  private static final String PERMISSION_SET_KEY = "\",\"permission_set_id\":\"";
+  private static final char QUOTATION_MARK = '"';
+
+  /** PoolAssignmentConsumer interface is used to receive one scanned (case pool, permission). */
+  @FunctionalInterface
+  public interface PoolAssignmentConsumer {
+    void accept(long casePoolId, long permissionSetId);
+  }
+
+  /** Scan every run of digits in data, e.g. role IDs "[2020,2019]". */
+  public static void scanNumbers(String data, LongConsumer idConsumer) {
+    int length = data.length();
+    int position = 0;
+    while (position < length) {
+      if (!isDigit(data.charAt(position))) {
+        position++;
+        continue;
+      }
+      long value = 0;
+      while (position < length && isDigit(data.charAt(position))) {
+        value = appendDigit(value, data.charAt(position));
+        position++;
+      }
+      idConsumer.accept(value);
+    }
+  }
+
+  /**
+   * Scan quoted skill IDs, e.g. "skill_id":"1990". Other elements such as "proficiency" are
+   * skipped.
+   */
+  public static void scanRoleSkillIds(String data, LongConsumer idConsumer) {
+    int position = data.indexOf(ROLESKILL_KEY);
+    while (position >= 0) {
+      int valueStart = position + ROLESKILL_KEY.length();
+      int valueEnd = findQuotedNumberEnd(data, valueStart);
+      if (valueEnd > 0) {
+        idConsumer.accept(parseDigits(data, valueStart, valueEnd));
+        position = data.indexOf(ROLESKILL_KEY, valueEnd + 1);
+      } else {
+        position = data.indexOf(ROLESKILL_KEY, position + 1);
+      }
+    }
+  }
+
+  /** Scan pool assignments, e.g. "cases_pool_id":"2000543","permission_set_id":"2048". */
+  public static void scanPoolAssignments(
+      String data, PoolAssignmentConsumer poolAssignmentConsumer) {
+    int position = data.indexOf(CASES_POOL_KEY);
+    while (position >= 0) {
+      int casePoolIdStart = position + CASES_POOL_KEY.length();
+      int casePoolIdEnd = findNumberEnd(data, casePoolIdStart);
+      int permissionSetIdStart = casePoolIdEnd + PERMISSION_SET_KEY.length();
+      if (casePoolIdEnd > casePoolIdStart
+          && data.startsWith(PERMISSION_SET_KEY, casePoolIdEnd)
+          && findQuotedNumberEnd(data, permissionSetIdStart) > 0) {
+        int permissionSetIdEnd = findNumberEnd(data, permissionSetIdStart);
+        poolAssignmentConsumer.accept(
+            parseDigits(data, casePoolIdStart, casePoolIdEnd),
+            parseDigits(data, permissionSetIdStart, permissionSetIdEnd));
+        position = data.indexOf(CASES_POOL_KEY, permissionSetIdEnd + 1);
+      } else {
+        position = data.indexOf(CASES_POOL_KEY, position + 1);
+      }
+    }
+  }
+
+  /** Return the end of a non-empty run of digits closed by a quotation mark, or -1. */
+  private static int findQuotedNumberEnd(String data, int start) {
+    int end = findNumberEnd(data, start);
+    return end > start && end < data.length() && data.charAt(end) == QUOTATION_MARK ? end : -1;
+  }
+
+  private static int findNumberEnd(String data, int start) {
+    int end = start;
+    while (end < data.length() && isDigit(data.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  private static long parseDigits(String data, int start, int end) {
+    long value = 0;
+    for (int position = start; position < end; position++) {
+      value = appendDigit(value, data.charAt(position));
+    }
+    return value;
+  }
+
+  private static long appendDigit(long value, char digit) {
+    long digitValue = digit - '0';
+    if (value > (Long.MAX_VALUE - digitValue) / 10) {
+      throw new NumberFormatException("ID value is out of range for long: " + value + digit);
+    }
+    return value * 10 + digitValue;
+  }
+
+  private static boolean isDigit(char character) {
+    return character >= '0' && character <= '9';
+  }
+}
@@ -0,0 +1,179 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompiledRuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.LazyRuleValidationReport;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserEquivalenceClassModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IncrementalRuleValidation class is used to keep the validation of a changing rule set up to
+ * date without validating every rule again after each change.
+ *
+ * <p>For each class of users with the same profile, it keeps how many rules grant each pool
+ * assignment, and how many of the expected and of the unexpected pool assignments are granted at
+ * all. Adding or removing a rule only updates the classes the rule covers, found through a {@link
+ * src.main.java.com.googleintern.wfm.ruleengine.model.UserBitmapIndex}, so the rule coverage is
+ * always known. {@link #report()} returns a {@link LazyRuleValidationReport} in constant time. Its
+ * other sections are built from the kept pool assignments of each class when they are read,
+ * without matching any rule.
+ */
+public class IncrementalRuleValidation {
+  private final RuleValidation ruleValidation;
+  private final ImmutableList<UserEquivalenceClassModel> userClasses;
+  private final int numberOfUsers;
+  private final int[] distinctMemberCounts;
+  private final List<Map<PoolAssignmentModel, Integer>> grantCountsByUserClass;
+  private final int[] grantedExpectedCounts;
+  private final int[] grantedUnexpectedCounts;
+  private final List<ImmutableSet<PoolAssignmentModel>> assignedPermissionsByUserClass;
+  private final Map<RuleModel, CompiledRuleModel> compiledRules = new LinkedHashMap<>();
+  private int numberOfUsersWithWrongAssignedPermissions = 0;
+  private int numberOfChanges = 0;
+
+  public IncrementalRuleValidation(ImmutableList<UserModel> existingUserPoolAssignments) {
+    this.ruleValidation = new RuleValidation(existingUserPoolAssignments);
+    this.userClasses = ruleValidation.userClasses();
+    this.numberOfUsers = existingUserPoolAssignments.size();
+    this.distinctMemberCounts = new int[userClasses.size()];
+    this.grantCountsByUserClass = new ArrayList<>(userClasses.size());
+    this.grantedExpectedCounts = new int[userClasses.size()];
+    this.grantedUnexpectedCounts = new int[userClasses.size()];
+    this.assignedPermissionsByUserClass = new ArrayList<>(userClasses.size());
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      distinctMemberCounts[classIndex] = ruleValidation.distinctMemberCount(classIndex);
+      grantCountsByUserClass.add(new LinkedHashMap<>());
+      assignedPermissionsByUserClass.add(ImmutableSet.of());
+      if (hasWrongAssignedPermissions(classIndex)) {
+        numberOfUsersWithWrongAssignedPermissions += distinctMemberCounts[classIndex];
+      }
+    }
+  }
+
+  /** Create a validation of existingUserPoolAssignments that starts with generatedRules. */
+  public static IncrementalRuleValidation of(
+      ImmutableList<UserModel> existingUserPoolAssignments,
+      ImmutableSet<RuleModel> generatedRules) {
+    IncrementalRuleValidation incrementalRuleValidation =
+        new IncrementalRuleValidation(existingUserPoolAssignments);
+    generatedRules.forEach(incrementalRuleValidation::addRule);
+    return incrementalRuleValidation;
+  }
+
+  /** Add rule. Return false if rule is already in the rule set. */
+  public boolean addRule(RuleModel rule) {
+    if (compiledRules.containsKey(rule)) {
+      return false;
+    }
+    CompiledRuleModel compiledRule = CompiledRuleModel.of(rule);
+    compiledRules.put(rule, compiledRule);
+    numberOfChanges++;
+    ruleValidation.forEachCoveredUserClass(
+        compiledRule,
+        classIndex -> updateGrantCounts(classIndex, compiledRule.poolAssignments(), 1));
+    return true;
+  }
+
+  /** Remove rule. Return false if rule is not in the rule set. */
+  public boolean removeRule(RuleModel rule) {
+    CompiledRuleModel compiledRule = compiledRules.remove(rule);
+    if (compiledRule == null) {
+      return false;
+    }
+    numberOfChanges++;
+    ruleValidation.forEachCoveredUserClass(
+        compiledRule,
+        classIndex -> updateGrantCounts(classIndex, compiledRule.poolAssignments(), -1));
+    return true;
+  }
+
+  /** Return the current rules in the order they were added. */
+  public ImmutableSet<RuleModel> rules() {
+    return ImmutableSet.copyOf(compiledRules.keySet());
+  }
+
+  /** Return the % of users that get exactly their pool assignments from the current rules. */
+  public double ruleCoverage() {
+    return (numberOfUsers - numberOfUsersWithWrongAssignedPermissions) / (double) numberOfUsers;
+  }
+
+  /**
+   * Return the report of the current rules. Only the rule coverage is known up front. {@link
+   * LazyRuleValidationReport#toReport()} is equal to the report of {@link
+   * RuleValidation#validate(ImmutableSet)} on {@link #rules()}, though the pool assignments of a
+   * user may be listed in another order.
+   *
+   * <p>The rules and the pool assignments of each class are copied from the current state the
+   * first time a section needs them, and the sections read later are built from that copy. If a
+   * rule is added or removed before a section's data is copied, reading the section throws {@link
+   * IllegalStateException}.
+   */
+  public LazyRuleValidationReport report() {
+    int numberOfChangesAtReport = numberOfChanges;
+    return ruleValidation.createLazyReport(
+        () -> {
+          checkUnchangedSince(numberOfChangesAtReport);
+          return rules();
+        },
+        ruleCoverage(),
+        () -> {
+          checkUnchangedSince(numberOfChangesAtReport);
+          return ImmutableList.copyOf(assignedPermissionsByUserClass);
+        });
+  }
+
+  private void checkUnchangedSince(int numberOfChangesAtReport) {
+    Preconditions.checkState(
+        numberOfChanges == numberOfChangesAtReport,
+        "Rules were added or removed after the report was created.");
+  }
+
+  private void updateGrantCounts(
+      int classIndex, ImmutableSet<PoolAssignmentModel> poolAssignments, int delta) {
+    boolean hadWrongAssignedPermissions = hasWrongAssignedPermissions(classIndex);
+    ImmutableSet<PoolAssignmentModel> expectedPoolAssignments =
+        userClasses.get(classIndex).representative().poolAssignments();
+    Map<PoolAssignmentModel, Integer> grantCounts = grantCountsByUserClass.get(classIndex);
+    boolean isAssignedSetChanged = false;
+    for (PoolAssignmentModel poolAssignment : poolAssignments) {
+      int grantCount = grantCounts.getOrDefault(poolAssignment, 0) + delta;
+      if (grantCount == 0) {
+        grantCounts.remove(poolAssignment);
+      } else {
+        grantCounts.put(poolAssignment, grantCount);
+      }
+      if (grantCount == 0 || grantCount == delta) {
+        isAssignedSetChanged = true;
+        if (expectedPoolAssignments.contains(poolAssignment)) {
+          grantedExpectedCounts[classIndex] += delta;
+        } else {
+          grantedUnexpectedCounts[classIndex] += delta;
+        }
+      }
+    }
+    if (isAssignedSetChanged) {
+      assignedPermissionsByUserClass.set(classIndex, ImmutableSet.copyOf(grantCounts.keySet()));
+    }
+    if (hadWrongAssignedPermissions != hasWrongAssignedPermissions(classIndex)) {
+      numberOfUsersWithWrongAssignedPermissions +=
+          hadWrongAssignedPermissions
+              ? -distinctMemberCounts[classIndex]
+              : distinctMemberCounts[classIndex];
+    }
+  }
+
+  private boolean hasWrongAssignedPermissions(int classIndex) {
+    return grantedUnexpectedCounts[classIndex] > 0
+        || grantedExpectedCounts[classIndex]
+            < userClasses.get(classIndex).representative().poolAssignments().size();
+  }
+}
@@ -0,0 +1,238 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.opencsv.exceptions.CsvException;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * ParallelCsvParser class is used to parse a large input csv file on multiple cores. The result is
+ * the same as {@link CsvParser#readFromCSVFile(String, Predicate)}.
+ *
+ * <p>Steps:
+ *
+ * <ol>
+ *   <li>Step 1: Split the memory-mapped input file into byte ranges of similar size.
+ *   <li>Step 2: Count quotation marks inside each byte range in parallel. The parity of all counts
+ *       before a range tells whether the range starts inside a quoted field.
+ *   <li>Step 3: Move every split point forward to the first line break outside a quoted field, so
+ *       each byte range holds whole csv records.
+ *   <li>Step 4: Parse each byte range with {@link CsvParser} in parallel and merge the parsed
+ *       {@link UserModel} in file order.
+ * </ol>
+ */
+public class ParallelCsvParser {
+  private static final long MIN_CHUNK_SIZE = 1L << 20;
+  private static final long MAX_CHUNK_SIZE = 1L << 30;
+  private static final int CHUNKS_PER_THREAD = 4;
+  private static final int SCAN_WINDOW_SIZE = 1 << 16;
+  private static final byte QUOTATION_MARK = '"';
+  private static final byte LINE_FEED = '\n';
+
+  /**
+   * Read all data using csvFilePath on pool.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(String csvFilePath, ForkJoinPool pool)
+      throws IOException, CsvException {
+    return readFromCSVFile(csvFilePath, user -> true, pool);
+  }
+
+  /**
+   * Read data using csvFilePath on pool and keep only users accepted by userFilter.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(
+      String csvFilePath, Predicate<UserModel> userFilter, ForkJoinPool pool)
+      throws IOException, CsvException {
+    long fileSize = Files.size(Paths.get(csvFilePath));
+    int chunkCount =
+        (int)
+            Math.max(
+                1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, fileSize / MIN_CHUNK_SIZE));
+    return readFromCSVFile(csvFilePath, userFilter, pool, chunkCount);
+  }
+
+  /**
+   * Read data using csvFilePath on pool and keep only users accepted by userFilter. The file is
+   * split into chunkCount byte ranges, or more if a range would exceed MAX_CHUNK_SIZE.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(
+      String csvFilePath, Predicate<UserModel> userFilter, ForkJoinPool pool, int chunkCount)
+      throws IOException, CsvException {
+    try (FileChannel channel = FileChannel.open(Paths.get(csvFilePath), StandardOpenOption.READ)) {
+      long[] chunkBoundaries =
+          findRecordAlignedBoundaries(
+              channel, findNominalBoundaries(channel.size(), chunkCount), pool);
+      ImmutableList<Callable<ImmutableList<UserModel>>> parsingTasks =
+          IntStream.range(0, chunkBoundaries.length - 1)
+              .filter(chunk -> chunkBoundaries[chunk] < chunkBoundaries[chunk + 1])
+              .mapToObj(
+                  chunk ->
+                      (Callable<ImmutableList<UserModel>>)
+                          () ->
+                              parseChunk(
+                                  channel,
+                                  chunkBoundaries[chunk],
+                                  chunkBoundaries[chunk + 1],
+                                  chunk == 0 ? 1 : 0,
+                                  userFilter))
+              .collect(toImmutableList());
+      return ParallelTaskRunner.invokeAll(pool, parsingTasks).stream()
+          .flatMap(List::stream)
+          .collect(toImmutableList());
+    } catch (ExecutionException exception) {
+      Throwables.throwIfInstanceOf(exception.getCause(), IOException.class);
+      Throwables.throwIfInstanceOf(exception.getCause(), CsvException.class);
+      throw new IllegalStateException(exception.getCause());
+    }
+  }
+
+  private static long[] findNominalBoundaries(long fileSize, int chunkCount) {
+    int numberOfChunks =
+        (int) Math.max(Math.max(chunkCount, 1), (fileSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+    long[] boundaries = new long[numberOfChunks + 1];
+    for (int chunk = 0; chunk <= numberOfChunks; chunk++) {
+      boundaries[chunk] = fileSize * chunk / numberOfChunks;
+    }
+    return boundaries;
+  }
+
+  /** Move every inner boundary to the start of the next csv record. */
+  private static long[] findRecordAlignedBoundaries(
+      FileChannel channel, long[] nominalBoundaries, ForkJoinPool pool)
+      throws IOException, ExecutionException {
+    int numberOfChunks = nominalBoundaries.length - 1;
+    ImmutableList<Boolean> hasOddQuotationMarks =
+        ParallelTaskRunner.invokeAll(
+            pool,
+            IntStream.range(0, numberOfChunks)
+                .mapToObj(
+                    chunk ->
+                        (Callable<Boolean>)
+                            () ->
+                                hasOddQuotationMarks(
+                                    channel,
+                                    nominalBoundaries[chunk],
+                                    nominalBoundaries[chunk + 1]))
+                .collect(toImmutableList()));
+
+    ImmutableList.Builder<Callable<Long>> alignmentTasksBuilder = ImmutableList.builder();
+    boolean isInsideQuotes = false;
+    for (int chunk = 1; chunk < numberOfChunks; chunk++) {
+      isInsideQuotes ^= hasOddQuotationMarks.get(chunk - 1);
+      long nominalBoundary = nominalBoundaries[chunk];
+      boolean startsInsideQuotes = isInsideQuotes;
+      alignmentTasksBuilder.add(
+          () -> findNextRecordStart(channel, nominalBoundary, startsInsideQuotes));
+    }
+    ImmutableList<Long> alignedInnerBoundaries =
+        ParallelTaskRunner.invokeAll(pool, alignmentTasksBuilder.build());
+
+    long[] boundaries = new long[numberOfChunks + 1];
+    boundaries[numberOfChunks] = channel.size();
+    for (int chunk = 1; chunk < numberOfChunks; chunk++) {
+      boundaries[chunk] = alignedInnerBoundaries.get(chunk - 1);
+    }
+    return boundaries;
+  }
+
+  private static boolean hasOddQuotationMarks(FileChannel channel, long start, long end)
+      throws IOException {
+    ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    boolean isOdd = false;
+    while (chunk.hasRemaining()) {
+      if (chunk.get() == QUOTATION_MARK) {
+        isOdd = !isOdd;
+      }
+    }
+    return isOdd;
+  }
+
+  /**
+   * Find the first byte after a line feed that is outside quoted fields. Doubled quotation marks
+   * inside a quoted field toggle the state twice, so they are handled without lookahead.
+   */
+  private static long findNextRecordStart(
+      FileChannel channel, long position, boolean isInsideQuotes) throws IOException {
+    long fileSize = channel.size();
+    while (position < fileSize) {
+      long windowSize = Math.min(SCAN_WINDOW_SIZE, fileSize - position);
+      ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+      while (window.hasRemaining()) {
+        byte currentByte = window.get();
+        if (currentByte == QUOTATION_MARK) {
+          isInsideQuotes = !isInsideQuotes;
+        } else if (currentByte == LINE_FEED && !isInsideQuotes) {
+          return position + window.position();
+        }
+      }
+      position += windowSize;
+    }
+    return fileSize;
+  }
+
+  private static ImmutableList<UserModel> parseChunk(
+      FileChannel channel, long start, long end, int skipLines, Predicate<UserModel> userFilter)
+      throws IOException, CsvException {
+    ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    return CsvParser.readFromReader(
+        new BufferedReader(
+            new InputStreamReader(new ByteBufferInputStream(chunk), StandardCharsets.UTF_8)),
+        skipLines,
+        userFilter);
+  }
+
+  /** ByteBufferInputStream class is used to decode a mapped chunk without copying it. */
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int readLength = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, readLength);
+      return readLength;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * ParallelTaskRunner class is used to run independent tasks on a {@link ForkJoinPool} and collect
+ * their results in task order, so merged outputs do not depend on thread scheduling.
+ */
+public class ParallelTaskRunner {
+  /**
+   * Run all tasks on pool and return their results in the same order as tasks.
+   *
+   * @throws ExecutionException if any task throws a checked exception. Unchecked exceptions are
+   *     rethrown as is.
+   */
+  public static <T> ImmutableList<T> invokeAll(
+      ForkJoinPool pool, List<? extends Callable<T>> tasks) throws ExecutionException {
+    ImmutableList.Builder<T> resultsBuilder = ImmutableList.builder();
+    for (Future<T> future : pool.invokeAll(tasks)) {
+      try {
+        resultsBuilder.add(Futures.getDone(future));
+      } catch (ExecutionException exception) {
+        Throwables.throwIfUnchecked(exception.getCause());
+        throw exception;
+      }
+    }
+    return resultsBuilder.build();
+  }
+
+  /** Run all tasks that throw no checked exceptions on pool and return results in task order. */
+  public static <T> ImmutableList<T> supplyAll(
+      ForkJoinPool pool, List<? extends Supplier<T>> tasks) {
+    try {
+      return invokeAll(
+          pool,
+          tasks.stream()
+              .map(task -> (Callable<T>) task::get)
+              .collect(toImmutableList()));
+    } catch (ExecutionException exception) {
+      throw new IllegalStateException(exception.getCause());
+    }
+  }
+}
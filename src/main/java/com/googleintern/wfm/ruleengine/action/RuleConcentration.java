@@ -6,8 +6,10 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import src.main.java.com.googleintern.wfm.ruleengine.action.generator.RuleIdGenerator;
 import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PackedFilterGroup;
 import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
@@ -43,7 +45,9 @@ public class RuleConcentration {
         concentratedRulesBuilder.addAll(
             generateConcentratedRules(
                 rulesByCasePoolId.get(casePoolId).stream()
-                    .collect(toImmutableListMultimap(rule -> rule.filters(), rule -> rule)),
+                    .collect(
+                        toImmutableListMultimap(
+                            rule -> packFilters(rule.filters()), rule -> rule)),
                 ruleIdGenerator));
       }
     }
@@ -51,10 +55,10 @@ public class RuleConcentration {
   }
 
   private static ImmutableSet<RuleModel> generateConcentratedRules(
-      ImmutableListMultimap<ImmutableList<ImmutableSet<FilterModel>>, RuleModel> rulesByFilters,
+      ImmutableListMultimap<ImmutableList<PackedFilterGroup>, RuleModel> rulesByFilters,
       RuleIdGenerator ruleIdGenerator) {
     ImmutableSet.Builder<RuleModel> concentratedRulesBuilder = ImmutableSet.builder();
-    for (ImmutableList<ImmutableSet<FilterModel>> filters : rulesByFilters.keySet()) {
+    for (ImmutableList<PackedFilterGroup> filters : rulesByFilters.keySet()) {
       ImmutableList<RuleModel> sameFiltersRules = rulesByFilters.get(filters);
       if (!sameFiltersRules.isEmpty()) {
         concentratedRulesBuilder.add(
@@ -67,10 +71,16 @@ public class RuleConcentration {
                     sameFiltersRules.stream()
                         .flatMap(rule -> rule.permissionSetIds().stream())
                         .collect(toImmutableSet()))
-                .setFilters(filters)
+                .setFilters(sameFiltersRules.get(0).filters())
                 .build());
       }
     }
     return concentratedRulesBuilder.build();
   }
+
+  /** Pack each OR-group of filters, so that rules are grouped by comparing long arrays. */
+  private static ImmutableList<PackedFilterGroup> packFilters(
+      ImmutableList<ImmutableSet<FilterModel>> filters) {
+    return filters.stream().map(PackedFilterGroup::fromFilters).collect(toImmutableList());
+  }
 }
@@ -1,11 +1,31 @@
 package src.main.java.com.googleintern.wfm.ruleengine.action;
 
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import com.google.common.collect.TreeBasedTable;
+import com.google.common.primitives.ImmutableIntArray;
 import src.main.java.com.googleintern.wfm.ruleengine.model.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 /**
@@ -15,109 +35,642 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
  * <p>Steps:
  *
  * <ol>
- *   <li>Step 1: Assign {@link PoolAssignmentModel} to each user based on generated rules. Save
- *       permission assignments by users in an immutable set multimap.
- *   <li>Step 2: Find users that have wrong pool assignments assigned.
- *   <li>Step 3: Calculate the generated rules' coverage(% of users that have the right pool
+ *   <li>Step 1: Assign {@link PoolAssignmentModel} to each user based on generated rules. Users
+ *       with the same profile are grouped into {@link UserEquivalenceClassModel} and checked once.
+ *       Only the rules found through a {@link RuleIndex} are checked for each user.
+ *   <li>Step 2: Decide once per class whether its users have less or more pool assignments
+ *       assigned.
+ *   <li>Step 3: In one pass over the users, save permission assignments by users in an immutable
+ *       set multimap, collect users that have less or more pool assignments assigned and collect
+ *       the pool assignments of all users.
+ *   <li>Step 4: Calculate the generated rules' coverage(% of users that have the right pool
  *       assignments).
- *   <li>Step 4: Find users that have less pool assignments assigned.
- *   <li>Step 5: Find users that have more pool assignments assigned.
- *   <li>Step 6: Find pool assignments that have no related rules.
- *   <li>Step 7: Use finding results from above steps to create {@link RuleValidationReport}.
+ *   <li>Step 5: Find pool assignments that have no related rules.
+ *   <li>Step 6: Use finding results from above steps to create {@link RuleValidationReport}.
  * </ol>
  */
 public class RuleValidation {
+  private static final int MIN_SHARD_SIZE = 256;
+  private static final int SHARDS_PER_THREAD = 4;
+  /** Z-score of a two-sided 95% confidence interval. */
+  private static final double Z_SCORE = 1.959964;
+  /**
+   * Number of pseudo users, half counted and half not, that Agresti-Coull smoothing adds to each
+   * stratum before taking its variance.
+   */
+  private static final double SMOOTHING_SAMPLE_SIZE = Z_SCORE * Z_SCORE;
 
   private final ImmutableList<UserModel> existingUserPoolAssignments;
+  private final ImmutableList<UserEquivalenceClassModel> userClasses;
+  private final ImmutableList<CompactUserModel> compactRepresentatives;
+  private final int[] userClassIndexes;
+  private final int[] distinctMemberCounts;
+  private final Supplier<UserBitmapIndex> userBitmapIndex;
+  private final Supplier<ImmutableList<ImmutableIntArray>> userIndexesByWorkgroup;
 
   public RuleValidation(ImmutableList<UserModel> existingUserPoolAssignments) {
     this.existingUserPoolAssignments = existingUserPoolAssignments;
+    this.userClasses = UserDeduplication.groupByProfile(existingUserPoolAssignments);
+    this.compactRepresentatives =
+        userClasses.stream()
+            .map(userClass -> CompactUserModel.of(userClass.representative()))
+            .collect(toImmutableList());
+    this.userClassIndexes = findUserClassIndexes(existingUserPoolAssignments, userClasses);
+    this.distinctMemberCounts = countDistinctMembers(userClasses);
+    this.userBitmapIndex =
+        Suppliers.memoize(() -> UserBitmapIndex.of(compactRepresentatives));
+    this.userIndexesByWorkgroup =
+        Suppliers.memoize(() -> groupUserIndexesByWorkgroup(existingUserPoolAssignments));
+  }
+
+  /**
+   * Calculate the rule coverage of {@link #validate(ImmutableSet)} on the members of userClasses,
+   * which must come from {@link UserDeduplication#groupByProfile(List)}. Each class is checked
+   * once and counted with its number of distinct members, as in the report.
+   */
+  public static double calculateRuleCoverage(
+      List<UserEquivalenceClassModel> userClasses, ImmutableSet<RuleModel> generatedRules) {
+    RuleIndex.Matcher matcher =
+        RuleIndex.of(CompiledRuleModel.compileAll(generatedRules)).newMatcher();
+    Set<PoolAssignmentModel> grantedPoolAssignments = new HashSet<>();
+    int[] distinctMemberCounts = countDistinctMembers(userClasses);
+    long numberOfUsers = 0;
+    long numberOfUsersWithWrongAssignedPermissions = 0;
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      UserEquivalenceClassModel userClass = userClasses.get(classIndex);
+      numberOfUsers += userClass.memberCount();
+      if (!isCovered(
+          CompactUserModel.of(userClass.representative()), matcher, grantedPoolAssignments)) {
+        numberOfUsersWithWrongAssignedPermissions += distinctMemberCounts[classIndex];
+      }
+    }
+    return (numberOfUsers - numberOfUsersWithWrongAssignedPermissions) / (double) numberOfUsers;
+  }
+
+  /**
+   * Calculate the rule coverage of generatedRules without creating a report. It is equal to the
+   * rule coverage of {@link #validate(ImmutableSet)}, but no pool assignment set is built per
+   * class: the pool assignments of a class's matching rules are checked until the first
+   * unexpected one, and nothing is kept per user.
+   */
+  public double calculateRuleCoverage(ImmutableSet<RuleModel> generatedRules) {
+    return calculateRuleCoverage(RuleIndex.of(CompiledRuleModel.compileAll(generatedRules)));
+  }
+
+  private double calculateRuleCoverage(RuleIndex ruleIndex) {
+    RuleIndex.Matcher matcher = ruleIndex.newMatcher();
+    Set<PoolAssignmentModel> grantedPoolAssignments = new HashSet<>();
+    long numberOfUsersWithWrongAssignedPermissions = 0;
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      if (!isCovered(compactRepresentatives.get(classIndex), matcher, grantedPoolAssignments)) {
+        numberOfUsersWithWrongAssignedPermissions += distinctMemberCounts[classIndex];
+      }
+    }
+    return calculateRuleCoverage(numberOfUsersWithWrongAssignedPermissions);
   }
 
   public RuleValidationReport validate(ImmutableSet<RuleModel> generatedRules) {
+    RuleIndex ruleIndex = RuleIndex.of(CompiledRuleModel.compileAll(generatedRules));
+    return createReport(
+        generatedRules, assignPermissionsToUserClasses(ruleIndex, 0, userClasses.size()));
+  }
+
+  /**
+   * Same result as {@link #validate(ImmutableSet)}, but only the rule coverage is computed up
+   * front, as in {@link #calculateRuleCoverage(ImmutableSet)}. The pool assignments of each class
+   * are only built when the first section that needs them is read, and the other sections of the
+   * {@link LazyRuleValidationReport} are built from them on first read.
+   */
+  public LazyRuleValidationReport validateLazily(ImmutableSet<RuleModel> generatedRules) {
+    RuleIndex ruleIndex = RuleIndex.of(CompiledRuleModel.compileAll(generatedRules));
+    return createLazyReport(
+        () -> generatedRules,
+        calculateRuleCoverage(ruleIndex),
+        () -> assignPermissionsToUserClasses(ruleIndex, 0, userClasses.size()));
+  }
+
+  /**
+   * Same result as {@link #validate(ImmutableSet)}, but user classes are split into contiguous
+   * shards that are matched against the rules in parallel on pool. Each shard has its own {@link
+   * RuleIndex.Matcher}, and shard results are joined in class order before the report is created.
+   */
+  public RuleValidationReport validate(ImmutableSet<RuleModel> generatedRules, ForkJoinPool pool) {
+    RuleIndex ruleIndex = RuleIndex.of(CompiledRuleModel.compileAll(generatedRules));
+    int shardSize =
+        Math.max(
+            MIN_SHARD_SIZE,
+            (userClasses.size() + pool.getParallelism() * SHARDS_PER_THREAD - 1)
+                / (pool.getParallelism() * SHARDS_PER_THREAD));
+    List<Supplier<ImmutableList<ImmutableSet<PoolAssignmentModel>>>> shardTasks =
+        new ArrayList<>();
+    for (int from = 0; from < userClasses.size(); from += shardSize) {
+      int shardStart = from;
+      int shardEnd = Math.min(from + shardSize, userClasses.size());
+      shardTasks.add(() -> assignPermissionsToUserClasses(ruleIndex, shardStart, shardEnd));
+    }
+    ImmutableList<ImmutableSet<PoolAssignmentModel>> assignedPermissionsByUserClass =
+        ParallelTaskRunner.supplyAll(pool, shardTasks).stream()
+            .flatMap(List::stream)
+            .collect(toImmutableList());
+    return createReport(generatedRules, assignedPermissionsByUserClass);
+  }
+
+  /**
+   * Same result as {@link #validate(ImmutableSet)}, but finds the users covered by each rule with
+   * bitmap set algebra over a {@link UserBitmapIndex}. The index is built on first use and kept for
+   * later calls, so this pays off when rule sets are large or validated repeatedly.
+   */
+  public RuleValidationReport validateWithUserBitmaps(ImmutableSet<RuleModel> generatedRules) {
+    List<ImmutableSet.Builder<PoolAssignmentModel>> assignedPermissionsBuilders =
+        new ArrayList<>(userClasses.size());
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      assignedPermissionsBuilders.add(ImmutableSet.builder());
+    }
+    for (CompiledRuleModel compiledRule : CompiledRuleModel.compileAll(generatedRules)) {
+      forEachCoveredUserClass(
+          compiledRule,
+          classIndex ->
+              assignedPermissionsBuilders.get(classIndex).addAll(compiledRule.poolAssignments()));
+    }
+    return createReport(
+        generatedRules,
+        assignedPermissionsBuilders.stream()
+            .map(ImmutableSet.Builder::build)
+            .collect(toImmutableList()));
+  }
+
+  /**
+   * Estimate the rates of {@link #validate(ImmutableSet)} from a sample of sampleSize users drawn
+   * with random, for inputs too large to validate exactly while tuning. Like the exact report, the
+   * rates count distinct users and divide by the number of input rows, and the rule coverage is one
+   * minus the rate of users with less or more pool assignments.
+   *
+   * <p>Distinct users are stratified by (Workforce ID, Workgroup ID) and the sample is split
+   * between workgroups in proportion to their number of distinct users with the largest remainder
+   * method, so it never has more than sampleSize users. Workgroups too small to get a user are
+   * assumed to have the rates of the sampled ones. Only the classes of sampled users are matched
+   * against the rules. {@link #validate(ImmutableSet)} still gives the exact report.
+   */
+  public SampledRuleValidationReport validateSample(
+      ImmutableSet<RuleModel> generatedRules, int sampleSize, Random random) {
+    Preconditions.checkArgument(sampleSize > 0, "Sample size must be positive.");
+    Preconditions.checkArgument(
+        !existingUserPoolAssignments.isEmpty(), "There are no users to sample.");
+    RuleIndex.Matcher matcher =
+        RuleIndex.of(CompiledRuleModel.compileAll(generatedRules)).newMatcher();
+    boolean[] isUserClassChecked = new boolean[userClasses.size()];
+    boolean[] hasLessAssignedPermissions = new boolean[userClasses.size()];
+    boolean[] hasMoreAssignedPermissions = new boolean[userClasses.size()];
+    ImmutableList<ImmutableIntArray> userIndexesOfStrata = userIndexesByWorkgroup.get();
+    int[] stratumSampleSizes = allocateSample(userIndexesOfStrata, sampleSize);
+    List<StratumCounts> strata = new ArrayList<>();
+    for (int stratumIndex = 0; stratumIndex < userIndexesOfStrata.size(); stratumIndex++) {
+      ImmutableIntArray userIndexes = userIndexesOfStrata.get(stratumIndex);
+      StratumCounts stratum =
+          new StratumCounts(userIndexes.length(), stratumSampleSizes[stratumIndex]);
+      for (int position : samplePositions(userIndexes.length(), stratum.sampleSize, random)) {
+        int classIndex = userClassIndexes[userIndexes.get(position)];
+        if (!isUserClassChecked[classIndex]) {
+          isUserClassChecked[classIndex] = true;
+          ImmutableSet<PoolAssignmentModel> poolAssignments =
+              userClasses.get(classIndex).representative().poolAssignments();
+          ImmutableSet<PoolAssignmentModel> assignedPermissions =
+              assignedPermissions(compactRepresentatives.get(classIndex), matcher);
+          hasLessAssignedPermissions[classIndex] =
+              !assignedPermissions.containsAll(poolAssignments);
+          hasMoreAssignedPermissions[classIndex] =
+              !poolAssignments.containsAll(assignedPermissions);
+        }
+        if (hasLessAssignedPermissions[classIndex]) {
+          stratum.lessCount++;
+        }
+        if (hasMoreAssignedPermissions[classIndex]) {
+          stratum.moreCount++;
+        }
+        if (hasLessAssignedPermissions[classIndex] || hasMoreAssignedPermissions[classIndex]) {
+          stratum.wrongCount++;
+        }
+      }
+      strata.add(stratum);
+    }
+
+    int numberOfUsers = existingUserPoolAssignments.size();
+    double wrongAssignedPermissionsRate =
+        estimateRate(strata, numberOfUsers, stratum -> stratum.wrongCount);
+    Range<Double> wrongAssignedPermissionsRateInterval =
+        estimateInterval(
+            strata, numberOfUsers, stratum -> stratum.wrongCount, wrongAssignedPermissionsRate);
+    double lessAssignedPermissionsRate =
+        estimateRate(strata, numberOfUsers, stratum -> stratum.lessCount);
+    double moreAssignedPermissionsRate =
+        estimateRate(strata, numberOfUsers, stratum -> stratum.moreCount);
+    return SampledRuleValidationReport.builder()
+        .setGeneratedRules(generatedRules)
+        .setNumberOfUsers(numberOfUsers)
+        .setSampleSize(Arrays.stream(stratumSampleSizes).sum())
+        .setRuleCoverage(1 - wrongAssignedPermissionsRate)
+        .setRuleCoverageInterval(
+            Range.closed(
+                1 - wrongAssignedPermissionsRateInterval.upperEndpoint(),
+                1 - wrongAssignedPermissionsRateInterval.lowerEndpoint()))
+        .setLessAssignedPermissionsRate(lessAssignedPermissionsRate)
+        .setLessAssignedPermissionsRateInterval(
+            estimateInterval(
+                strata, numberOfUsers, stratum -> stratum.lessCount, lessAssignedPermissionsRate))
+        .setMoreAssignedPermissionsRate(moreAssignedPermissionsRate)
+        .setMoreAssignedPermissionsRateInterval(
+            estimateInterval(
+                strata, numberOfUsers, stratum -> stratum.moreCount, moreAssignedPermissionsRate))
+        .build();
+  }
+
+  /** Return the user classes. Class indexes used by the methods below refer to this list. */
+  ImmutableList<UserEquivalenceClassModel> userClasses() {
+    return userClasses;
+  }
+
+  /**
+   * Return the number of distinct users in the user class at classIndex that are not in an earlier
+   * class. Copies of a user have equal profiles, so summing this over the wrong classes counts each
+   * wrong user once even when duplicate user IDs split the copies into singleton classes.
+   */
+  int distinctMemberCount(int classIndex) {
+    return distinctMemberCounts[classIndex];
+  }
+
+  /**
+   * Return {@link #distinctMemberCount(int)} for every class of userClasses, which must come from
+   * {@link UserDeduplication#groupByProfile(List)}. With unique user IDs no two members are equal,
+   * so this is the member count. Otherwise every class is a single user, and a class whose
+   * representative equals an earlier one counts zero.
+   */
+  private static int[] countDistinctMembers(List<UserEquivalenceClassModel> userClasses) {
+    int[] distinctMemberCounts =
+        userClasses.stream().mapToInt(UserEquivalenceClassModel::memberCount).toArray();
+    // groupByProfile only builds classes with several members when user IDs are unique.
+    if (Arrays.stream(distinctMemberCounts).anyMatch(memberCount -> memberCount > 1)) {
+      return distinctMemberCounts;
+    }
+    ImmutableList<UserModel> representatives = UserDeduplication.representatives(userClasses);
+    if (UserDeduplication.hasUniqueUserIds(representatives)) {
+      return distinctMemberCounts;
+    }
+    Set<UserModel> countedUsers = new HashSet<>();
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      if (!countedUsers.add(representatives.get(classIndex))) {
+        distinctMemberCounts[classIndex] = 0;
+      }
+    }
+    return distinctMemberCounts;
+  }
+
+  /** Pass the index of every user class covered by compiledRule to classIndexConsumer. */
+  void forEachCoveredUserClass(CompiledRuleModel compiledRule, IntConsumer classIndexConsumer) {
+    userBitmapIndex.get().forEachCoveredUser(compiledRule, classIndexConsumer);
+  }
 
-    ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignedPermissionsByUser =
-        assignPermissionsByGeneratedRules(generatedRules);
+  /**
+   * Create a {@link LazyRuleValidationReport} with the given rule coverage. The generated rules and
+   * the pool assignments of each class are each taken from their supplier once, when the first
+   * section that needs them is read.
+   */
+  LazyRuleValidationReport createLazyReport(
+      Supplier<ImmutableSet<RuleModel>> generatedRules,
+      double ruleCoverage,
+      Supplier<ImmutableList<ImmutableSet<PoolAssignmentModel>>> assignedPermissionsByUserClass) {
+    Supplier<ImmutableSet<RuleModel>> memoizedGeneratedRules = Suppliers.memoize(generatedRules);
+    Supplier<ImmutableList<ImmutableSet<PoolAssignmentModel>>>
+        memoizedAssignedPermissionsByUserClass = Suppliers.memoize(assignedPermissionsByUserClass);
+    return new LazyRuleValidationReport(
+        memoizedGeneratedRules,
+        ruleCoverage,
+        () -> assignPermissionsToUsers(memoizedAssignedPermissionsByUserClass.get()),
+        () ->
+            collectUsers(
+                compareAssignedPermissions(memoizedAssignedPermissionsByUserClass.get(), false)),
+        () ->
+            collectUsers(
+                compareAssignedPermissions(memoizedAssignedPermissionsByUserClass.get(), true)),
+        () ->
+            Sets.difference(
+                    userClasses.stream()
+                        .flatMap(userClass -> userClass.representative().poolAssignments().stream())
+                        .collect(toImmutableSet()),
+                    getActualAllPoolAssignments(memoizedGeneratedRules.get()))
+                .immutableCopy());
+  }
+
+  /**
+   * Create the report in one pass over the users. Whether a class has less or more pool
+   * assignments than assigned is decided once per class, and the report's sets, the rule coverage
+   * and the expected pool assignments are all accumulated along the way.
+   */
+  RuleValidationReport createReport(
+      ImmutableSet<RuleModel> generatedRules,
+      ImmutableList<ImmutableSet<PoolAssignmentModel>> assignedPermissionsByUserClass) {
+    boolean[] hasLessAssignedPermissions =
+        compareAssignedPermissions(assignedPermissionsByUserClass, false);
+    boolean[] hasMoreAssignedPermissions =
+        compareAssignedPermissions(assignedPermissionsByUserClass, true);
 
-    ImmutableSet<UserModel> usersWithWrongAssignedPermissions =
-        findUncoveredUsers(assignedPermissionsByUser);
+    ImmutableSetMultimap.Builder<UserModel, PoolAssignmentModel> assignedPermissionsByUserBuilder =
+        ImmutableSetMultimap.builder();
+    ImmutableSet.Builder<UserModel> usersWithLessAssignedPermissionsBuilder =
+        ImmutableSet.builder();
+    ImmutableSet.Builder<UserModel> usersWithMoreAssignedPermissionsBuilder =
+        ImmutableSet.builder();
+    ImmutableSet.Builder<PoolAssignmentModel> expectedPoolAssignmentsBuilder =
+        ImmutableSet.builder();
+    boolean[] isUserClassSeen = new boolean[userClasses.size()];
+    for (int userIndex = 0; userIndex < existingUserPoolAssignments.size(); userIndex++) {
+      UserModel user = existingUserPoolAssignments.get(userIndex);
+      int classIndex = userClassIndexes[userIndex];
+      assignedPermissionsByUserBuilder.putAll(user, assignedPermissionsByUserClass.get(classIndex));
+      if (hasLessAssignedPermissions[classIndex]) {
+        usersWithLessAssignedPermissionsBuilder.add(user);
+      }
+      if (hasMoreAssignedPermissions[classIndex]) {
+        usersWithMoreAssignedPermissionsBuilder.add(user);
+      }
+      if (!isUserClassSeen[classIndex]) {
+        isUserClassSeen[classIndex] = true;
+        expectedPoolAssignmentsBuilder.addAll(user.poolAssignments());
+      }
+    }
+    ImmutableSet<UserModel> usersWithLessAssignedPermissions =
+        usersWithLessAssignedPermissionsBuilder.build();
+    ImmutableSet<UserModel> usersWithMoreAssignedPermissions =
+        usersWithMoreAssignedPermissionsBuilder.build();
+    int numberOfUsersWithWrongAssignedPermissions =
+        usersWithLessAssignedPermissions.size()
+            + usersWithMoreAssignedPermissions.size()
+            - Sets.intersection(usersWithLessAssignedPermissions, usersWithMoreAssignedPermissions)
+                .size();
 
     return RuleValidationReport.builder()
         .setGeneratedRules(generatedRules)
-        .setAssignedPoolAssignmentsByUsers(assignedPermissionsByUser)
-        .setRuleCoverage(
-            (existingUserPoolAssignments.size() - usersWithWrongAssignedPermissions.size())
-                / (double) existingUserPoolAssignments.size())
-        .setUsersWithLessAssignedPermissions(
-            findUsersWithLessPermissionsAssigned(
-                usersWithWrongAssignedPermissions, assignedPermissionsByUser))
-        .setUsersWithMoreAssignedPermissions(
-            findUsersWithMorePermissionsAssigned(
-                usersWithWrongAssignedPermissions, assignedPermissionsByUser))
-        .setUncoveredPoolAssignments(findUncoveredPoolAssignments(generatedRules))
+        .setAssignedPoolAssignmentsByUsers(assignedPermissionsByUserBuilder.build())
+        .setRuleCoverage(calculateRuleCoverage(numberOfUsersWithWrongAssignedPermissions))
+        .setUsersWithLessAssignedPermissions(usersWithLessAssignedPermissions)
+        .setUsersWithMoreAssignedPermissions(usersWithMoreAssignedPermissions)
+        .setUncoveredPoolAssignments(
+            Sets.difference(
+                    expectedPoolAssignmentsBuilder.build(),
+                    getActualAllPoolAssignments(generatedRules))
+                .immutableCopy())
         .build();
   }
 
-  private ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignPermissionsByGeneratedRules(
-      ImmutableSet<RuleModel> generatedRules) {
-    ImmutableSetMultimap.Builder<UserModel, PoolAssignmentModel>
-        filtersByUserPoolAssignmentBuilder = ImmutableSetMultimap.builder();
-    for (UserModel user : existingUserPoolAssignments) {
-      filtersByUserPoolAssignmentBuilder.putAll(user, assignedPermissions(user, generatedRules));
+  /**
+   * Return for each class whether its users have more pool assignments assigned than expected if
+   * isMorePermissions, or less otherwise.
+   */
+  private boolean[] compareAssignedPermissions(
+      ImmutableList<ImmutableSet<PoolAssignmentModel>> assignedPermissionsByUserClass,
+      boolean isMorePermissions) {
+    boolean[] hasWrongAssignedPermissions = new boolean[userClasses.size()];
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      ImmutableSet<PoolAssignmentModel> poolAssignments =
+          userClasses.get(classIndex).representative().poolAssignments();
+      ImmutableSet<PoolAssignmentModel> assignedPermissions =
+          assignedPermissionsByUserClass.get(classIndex);
+      hasWrongAssignedPermissions[classIndex] =
+          isMorePermissions
+              ? !poolAssignments.containsAll(assignedPermissions)
+              : !assignedPermissions.containsAll(poolAssignments);
     }
-    return filtersByUserPoolAssignmentBuilder.build();
+    return hasWrongAssignedPermissions;
   }
 
-  private ImmutableSet<PoolAssignmentModel> assignedPermissions(
-      UserModel user, ImmutableSet<RuleModel> generatedRules) {
-    return generatedRules.stream()
-        .filter(rule -> rule.isUserCoveredByRule(user))
-        .flatMap(
-            rule ->
-                rule.permissionSetIds().stream()
-                    .map(
-                        permissionSetId ->
-                            PoolAssignmentModel.builder()
-                                .setCasePoolId(rule.casePoolId())
-                                .setPermissionSetId(permissionSetId)
-                                .build()))
-        .collect(toImmutableSet());
+  private ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignPermissionsToUsers(
+      ImmutableList<ImmutableSet<PoolAssignmentModel>> assignedPermissionsByUserClass) {
+    ImmutableSetMultimap.Builder<UserModel, PoolAssignmentModel> assignedPermissionsByUserBuilder =
+        ImmutableSetMultimap.builder();
+    for (int userIndex = 0; userIndex < existingUserPoolAssignments.size(); userIndex++) {
+      assignedPermissionsByUserBuilder.putAll(
+          existingUserPoolAssignments.get(userIndex),
+          assignedPermissionsByUserClass.get(userClassIndexes[userIndex]));
+    }
+    return assignedPermissionsByUserBuilder.build();
   }
 
-  private ImmutableSet<UserModel> findUncoveredUsers(
-      ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignedPermissionsByUser) {
-    return existingUserPoolAssignments.stream()
-        .filter(user -> !(user.poolAssignments().equals(assignedPermissionsByUser.get(user))))
-        .collect(toImmutableSet());
+  /** Return the users whose class is selected by isUserClassSelected, in input order. */
+  private ImmutableSet<UserModel> collectUsers(boolean[] isUserClassSelected) {
+    ImmutableSet.Builder<UserModel> usersBuilder = ImmutableSet.builder();
+    for (int userIndex = 0; userIndex < existingUserPoolAssignments.size(); userIndex++) {
+      if (isUserClassSelected[userClassIndexes[userIndex]]) {
+        usersBuilder.add(existingUserPoolAssignments.get(userIndex));
+      }
+    }
+    return usersBuilder.build();
   }
 
-  private static ImmutableSet<UserModel> findUsersWithLessPermissionsAssigned(
-      ImmutableSet<UserModel> usersWithWrongAssignedPermissions,
-      ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignedPermissionsByUser) {
-    return usersWithWrongAssignedPermissions.stream()
-        .filter(user -> !assignedPermissionsByUser.get(user).containsAll(user.poolAssignments()))
-        .collect(toImmutableSet());
+  private double calculateRuleCoverage(long numberOfUsersWithWrongAssignedPermissions) {
+    return (existingUserPoolAssignments.size() - numberOfUsersWithWrongAssignedPermissions)
+        / (double) existingUserPoolAssignments.size();
   }
 
-  private static ImmutableSet<UserModel> findUsersWithMorePermissionsAssigned(
-      ImmutableSet<UserModel> usersWithWrongAssignedPermissions,
-      ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignedPermissionsByUser) {
-    return usersWithWrongAssignedPermissions.stream()
-        .filter(user -> !user.poolAssignments().containsAll(assignedPermissionsByUser.get(user)))
-        .collect(toImmutableSet());
+  /**
+   * Return the indexes of the distinct users of each (Workforce ID, Workgroup ID) in input order.
+   * Of equal users, only the first is kept.
+   */
+  private static ImmutableList<ImmutableIntArray> groupUserIndexesByWorkgroup(
+      ImmutableList<UserModel> users) {
+    Table<Long, Long, ImmutableIntArray.Builder> userIndexesBuilders = TreeBasedTable.create();
+    Set<UserModel> distinctUsers = new HashSet<>();
+    for (int userIndex = 0; userIndex < users.size(); userIndex++) {
+      UserModel user = users.get(userIndex);
+      if (!distinctUsers.add(user)) {
+        continue;
+      }
+      ImmutableIntArray.Builder userIndexesBuilder =
+          userIndexesBuilders.get(user.workforceId(), user.workgroupId());
+      if (userIndexesBuilder == null) {
+        userIndexesBuilder = ImmutableIntArray.builder();
+        userIndexesBuilders.put(user.workforceId(), user.workgroupId(), userIndexesBuilder);
+      }
+      userIndexesBuilder.add(userIndex);
+    }
+    return userIndexesBuilders.values().stream()
+        .map(ImmutableIntArray.Builder::build)
+        .collect(toImmutableList());
   }
 
-  private ImmutableSet<PoolAssignmentModel> findUncoveredPoolAssignments(
-      ImmutableSet<RuleModel> generatedRules) {
-    return ImmutableSet.copyOf(
-        Sets.difference(
-            findExpectedAllPoolAssignments(), getActualAllPoolAssignments(generatedRules)));
+  /**
+   * Split sampleSize between the strata in proportion to their sizes with the largest remainder
+   * method: each stratum gets the integer part of its share, and the users left over go to the
+   * strata with the largest fractional parts. Every stratum is taken in full if sampleSize is at
+   * least the number of users.
+   */
+  private static int[] allocateSample(List<ImmutableIntArray> strata, int sampleSize) {
+    int[] sampleSizes = strata.stream().mapToInt(ImmutableIntArray::length).toArray();
+    long numberOfUsers = Arrays.stream(sampleSizes).asLongStream().sum();
+    if (sampleSize >= numberOfUsers) {
+      return sampleSizes;
+    }
+    long[] remainders = new long[sampleSizes.length];
+    int numberOfAllocatedUsers = 0;
+    for (int stratumIndex = 0; stratumIndex < sampleSizes.length; stratumIndex++) {
+      long share = (long) sampleSize * sampleSizes[stratumIndex];
+      sampleSizes[stratumIndex] = (int) (share / numberOfUsers);
+      remainders[stratumIndex] = share % numberOfUsers;
+      numberOfAllocatedUsers += sampleSizes[stratumIndex];
+    }
+    Integer[] stratumIndexesByRemainder = new Integer[sampleSizes.length];
+    Arrays.setAll(stratumIndexesByRemainder, stratumIndex -> stratumIndex);
+    Arrays.sort(
+        stratumIndexesByRemainder,
+        (first, second) -> Long.compare(remainders[second], remainders[first]));
+    for (int rank = 0; rank < sampleSize - numberOfAllocatedUsers; rank++) {
+      sampleSizes[stratumIndexesByRemainder[rank]]++;
+    }
+    return sampleSizes;
   }
 
-  private ImmutableSet<PoolAssignmentModel> findExpectedAllPoolAssignments() {
-    return existingUserPoolAssignments.stream()
-        .map(user -> user.poolAssignments())
-        .reduce(ImmutableSet.of(), (union, current) -> Sets.union(union, current).immutableCopy());
+  /**
+   * Return sampleSize distinct positions in [0, size) chosen uniformly with Floyd's algorithm, so
+   * the cost depends on sampleSize only.
+   */
+  private static Set<Integer> samplePositions(int size, int sampleSize, Random random) {
+    Set<Integer> positions = new HashSet<>();
+    for (int bound = size - sampleSize; bound < size; bound++) {
+      int position = random.nextInt(bound + 1);
+      positions.add(positions.contains(position) ? bound : position);
+    }
+    return positions;
+  }
+
+  /** Return the stratified estimate of the % of users counted by hitCount. */
+  private static double estimateRate(
+      List<StratumCounts> strata, int numberOfUsers, ToIntFunction<StratumCounts> hitCount) {
+    double weightPerUser = weightPerSampledStratumUser(strata, numberOfUsers);
+    double rate = 0;
+    for (StratumCounts stratum : strata) {
+      if (stratum.sampleSize > 0) {
+        rate +=
+            weightPerUser
+                * stratum.size
+                * (hitCount.applyAsInt(stratum) / (double) stratum.sampleSize);
+      }
+    }
+    return Math.min(1, rate);
+  }
+
+  /**
+   * Return the confidence interval of rate. Each stratum adds its variance, weighted by its share
+   * of the users and corrected for sampling without replacement, so a stratum sampled in full adds
+   * none. The variance is taken after Agresti-Coull smoothing, so a stratum whose sampled users all
+   * agree still adds some.
+   */
+  private static Range<Double> estimateInterval(
+      List<StratumCounts> strata,
+      int numberOfUsers,
+      ToIntFunction<StratumCounts> hitCount,
+      double rate) {
+    double weightPerUser = weightPerSampledStratumUser(strata, numberOfUsers);
+    double variance = 0;
+    for (StratumCounts stratum : strata) {
+      if (stratum.sampleSize == 0) {
+        continue;
+      }
+      double weight = weightPerUser * stratum.size;
+      double smoothedSampleSize = stratum.sampleSize + SMOOTHING_SAMPLE_SIZE;
+      double smoothedRate =
+          (hitCount.applyAsInt(stratum) + SMOOTHING_SAMPLE_SIZE / 2) / smoothedSampleSize;
+      double finitePopulationCorrection = 1 - stratum.sampleSize / (double) stratum.size;
+      variance +=
+          weight
+              * weight
+              * finitePopulationCorrection
+              * smoothedRate
+              * (1 - smoothedRate)
+              / smoothedSampleSize;
+    }
+    double marginOfError = Z_SCORE * Math.sqrt(variance);
+    return Range.closed(Math.max(0, rate - marginOfError), Math.min(1, rate + marginOfError));
+  }
+
+  /**
+   * Return the weight of one distinct user of a sampled stratum in the rates over numberOfUsers.
+   * Users of strata without a sample are spread over the sampled strata.
+   */
+  private static double weightPerSampledStratumUser(
+      List<StratumCounts> strata, int numberOfUsers) {
+    long numberOfDistinctUsers = 0;
+    long numberOfSampledStratumUsers = 0;
+    for (StratumCounts stratum : strata) {
+      numberOfDistinctUsers += stratum.size;
+      if (stratum.sampleSize > 0) {
+        numberOfSampledStratumUsers += stratum.size;
+      }
+    }
+    return numberOfDistinctUsers / (double) numberOfSampledStratumUsers / numberOfUsers;
+  }
+
+  /** Return the index of the class in userClasses that each user belongs to. */
+  private static int[] findUserClassIndexes(
+      ImmutableList<UserModel> users, ImmutableList<UserEquivalenceClassModel> userClasses) {
+    int[] userClassIndexes = new int[users.size()];
+    if (userClasses.size() == users.size()) {
+      Arrays.setAll(userClassIndexes, userIndex -> userIndex);
+      return userClassIndexes;
+    }
+    Map<UserModel, Integer> userClassIndexesByProfile = new HashMap<>();
+    for (int classIndex = 0; classIndex < userClasses.size(); classIndex++) {
+      userClassIndexesByProfile.put(
+          UserDeduplication.profileOf(userClasses.get(classIndex).representative()), classIndex);
+    }
+    for (int userIndex = 0; userIndex < users.size(); userIndex++) {
+      userClassIndexes[userIndex] =
+          userClassIndexesByProfile.get(UserDeduplication.profileOf(users.get(userIndex)));
+    }
+    return userClassIndexes;
+  }
+
+  /** Return the pool assignments given by ruleIndex to user classes in [from, to). */
+  private ImmutableList<ImmutableSet<PoolAssignmentModel>> assignPermissionsToUserClasses(
+      RuleIndex ruleIndex, int from, int to) {
+    RuleIndex.Matcher matcher = ruleIndex.newMatcher();
+    ImmutableList.Builder<ImmutableSet<PoolAssignmentModel>> assignedPermissionsBuilder =
+        ImmutableList.builderWithExpectedSize(to - from);
+    for (int classIndex = from; classIndex < to; classIndex++) {
+      assignedPermissionsBuilder.add(
+          assignedPermissions(compactRepresentatives.get(classIndex), matcher));
+    }
+    return assignedPermissionsBuilder.build();
+  }
+
+  private static ImmutableSet<PoolAssignmentModel> assignedPermissions(
+      CompactUserModel user, RuleIndex.Matcher matcher) {
+    ImmutableSet.Builder<PoolAssignmentModel> assignedPermissionsBuilder = ImmutableSet.builder();
+    matcher.forEachMatchingRule(
+        user, compiledRule -> assignedPermissionsBuilder.addAll(compiledRule.poolAssignments()));
+    return assignedPermissionsBuilder.build();
+  }
+
+  /**
+   * Return whether matcher gives user exactly its pool assignments. All rules that user matches are
+   * found, but their pool assignments are only checked up to the first unexpected one.
+   * grantedPoolAssignments is scratch space and is cleared first.
+   */
+  private static boolean isCovered(
+      CompactUserModel user,
+      RuleIndex.Matcher matcher,
+      Set<PoolAssignmentModel> grantedPoolAssignments) {
+    ImmutableSet<PoolAssignmentModel> poolAssignments = user.user().poolAssignments();
+    grantedPoolAssignments.clear();
+    return matcher.allMatchingRules(
+            user,
+            compiledRule -> {
+              for (PoolAssignmentModel poolAssignment : compiledRule.poolAssignments()) {
+                if (!poolAssignments.contains(poolAssignment)) {
+                  return false;
+                }
+                grantedPoolAssignments.add(poolAssignment);
+              }
+              return true;
+            })
+        && grantedPoolAssignments.size() == poolAssignments.size();
   }
 
   private static ImmutableSet<PoolAssignmentModel> getActualAllPoolAssignments(
@@ -134,4 +687,18 @@ public class RuleValidation {
                                 .build()))
         .collect(toImmutableSet());
   }
+
+  /** StratumCounts class is used to store the sample counts of one workgroup. */
+  private static final class StratumCounts {
+    private final int size;
+    private final int sampleSize;
+    private int lessCount = 0;
+    private int moreCount = 0;
+    private int wrongCount = 0;
+
+    private StratumCounts(int size, int sampleSize) {
+      this.size = size;
+      this.sampleSize = sampleSize;
+    }
+  }
 }
@@ -0,0 +1,185 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * SetTrie class is used to store values under sets of int elements and to find all values whose set
+ * is a subset of a query set.
+ *
+ * <p>Sets are given as int arrays sorted in strictly ascending order. Each set is a path from the
+ * root, so sets sharing a prefix share nodes. A subset query only walks the children whose element
+ * is in the query, so the cost depends on the number of matching paths rather than on the number of
+ * stored sets.
+ */
+public class SetTrie<V> {
+  private final Node<V> root = new Node<>();
+  private int size = 0;
+
+  /** Store value under set. The same set may hold several values. */
+  public void add(int[] set, V value) {
+    checkSorted(set);
+    Node<V> node = root;
+    for (int element : set) {
+      node = node.getOrAddChild(element);
+    }
+    node.addValue(value);
+    size++;
+  }
+
+  /** Remove one occurrence of value stored under set. Return whether it was found. */
+  public boolean remove(int[] set, V value) {
+    boolean isRemoved = remove(root, set, 0, value);
+    if (isRemoved) {
+      size--;
+    }
+    return isRemoved;
+  }
+
+  /** Pass every value whose set is a subset of query to valueConsumer. */
+  public void forEachSubsetOf(int[] query, Consumer<? super V> valueConsumer) {
+    forEachSubsetOf(root, query, 0, valueConsumer);
+  }
+
+  /** Return whether any stored set is a subset of query. */
+  public boolean containsSubsetOf(int[] query) {
+    return containsSubsetOf(root, query, 0);
+  }
+
+  /** Return the number of stored values. */
+  public int size() {
+    return size;
+  }
+
+  private static <V> boolean remove(Node<V> node, int[] set, int depth, V value) {
+    if (depth == set.length) {
+      return node.values != null && node.values.remove(value);
+    }
+    int childIndex = node.findChildIndex(set[depth]);
+    if (childIndex < 0) {
+      return false;
+    }
+    Node<V> child = node.children[childIndex];
+    boolean isRemoved = remove(child, set, depth + 1, value);
+    if (isRemoved && child.isEmpty()) {
+      node.removeChild(childIndex);
+    }
+    return isRemoved;
+  }
+
+  /** Walk the children and the rest of query as two sorted lists, visiting common elements. */
+  private static <V> void forEachSubsetOf(
+      Node<V> node, int[] query, int queryStart, Consumer<? super V> valueConsumer) {
+    if (node.values != null) {
+      node.values.forEach(valueConsumer);
+    }
+    int queryIndex = queryStart;
+    int childIndex = 0;
+    while (queryIndex < query.length && childIndex < node.childCount) {
+      int childElement = node.childElements[childIndex];
+      if (childElement == query[queryIndex]) {
+        forEachSubsetOf(node.children[childIndex], query, queryIndex + 1, valueConsumer);
+        queryIndex++;
+        childIndex++;
+      } else if (childElement < query[queryIndex]) {
+        childIndex++;
+      } else {
+        queryIndex++;
+      }
+    }
+  }
+
+  private static <V> boolean containsSubsetOf(Node<V> node, int[] query, int queryStart) {
+    if (node.values != null && !node.values.isEmpty()) {
+      return true;
+    }
+    int queryIndex = queryStart;
+    int childIndex = 0;
+    while (queryIndex < query.length && childIndex < node.childCount) {
+      int childElement = node.childElements[childIndex];
+      if (childElement == query[queryIndex]) {
+        if (containsSubsetOf(node.children[childIndex], query, queryIndex + 1)) {
+          return true;
+        }
+        queryIndex++;
+        childIndex++;
+      } else if (childElement < query[queryIndex]) {
+        childIndex++;
+      } else {
+        queryIndex++;
+      }
+    }
+    return false;
+  }
+
+  private static void checkSorted(int[] set) {
+    for (int index = 1; index < set.length; index++) {
+      Preconditions.checkArgument(
+          set[index - 1] < set[index], "Set elements must be in strictly ascending order.");
+    }
+  }
+
+  /** Node class is used to store the children of one trie node sorted by element. */
+  private static class Node<V> {
+    private static final int[] NO_ELEMENTS = new int[0];
+
+    private int[] childElements = NO_ELEMENTS;
+    private Node<V>[] children = newNodes(0);
+    private int childCount = 0;
+    private List<V> values = null;
+
+    Node<V> getOrAddChild(int element) {
+      int childIndex = findChildIndex(element);
+      if (childIndex >= 0) {
+        return children[childIndex];
+      }
+      int insertionIndex = -childIndex - 1;
+      if (childCount == childElements.length) {
+        int capacity = Math.max(2, childCount * 2);
+        childElements = Arrays.copyOf(childElements, capacity);
+        children = Arrays.copyOf(children, capacity);
+      }
+      int movedCount = childCount - insertionIndex;
+      System.arraycopy(
+          childElements, insertionIndex, childElements, insertionIndex + 1, movedCount);
+      System.arraycopy(children, insertionIndex, children, insertionIndex + 1, movedCount);
+      Node<V> child = new Node<>();
+      childElements[insertionIndex] = element;
+      children[insertionIndex] = child;
+      childCount++;
+      return child;
+    }
+
+    int findChildIndex(int element) {
+      return Arrays.binarySearch(childElements, 0, childCount, element);
+    }
+
+    void removeChild(int childIndex) {
+      System.arraycopy(
+          childElements, childIndex + 1, childElements, childIndex, childCount - childIndex - 1);
+      System.arraycopy(children, childIndex + 1, children, childIndex, childCount - childIndex - 1);
+      childCount--;
+      children[childCount] = null;
+    }
+
+    void addValue(V value) {
+      if (values == null) {
+        values = new ArrayList<>(1);
+      }
+      values.add(value);
+    }
+
+    boolean isEmpty() {
+      return childCount == 0 && (values == null || values.isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] newNodes(int length) {
+      return (Node<V>[]) new Node<?>[length];
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.collect.ImmutableList;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserEquivalenceClassModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * UserDeduplication class is used to collapse users with the same profile into {@link
+ * UserEquivalenceClassModel}. The profile of a user is everything in {@link UserModel} except the
+ * user ID.
+ *
+ * <p>Users with the same profile lead to the same filters, pool assignments, conflicts and rule
+ * coverage, so later steps only need to look at one representative per class and weight its
+ * results by the member count.
+ */
+public class UserDeduplication {
+  private static final long PROFILE_USER_ID = 0L;
+
+  /**
+   * Group users by profile. Classes are ordered by the first occurrence of their profile in users.
+   * If user IDs are not unique, every user gets its own class, since conflict removal skips users
+   * by user ID and a shared ID would tie different profiles together.
+   */
+  public static ImmutableList<UserEquivalenceClassModel> groupByProfile(List<UserModel> users) {
+    if (!hasUniqueUserIds(users)) {
+      return users.stream()
+          .map(
+              user ->
+                  UserEquivalenceClassModel.builder()
+                      .setRepresentative(user)
+                      .setMemberUserIds(ImmutableList.of(user.userId()))
+                      .build())
+          .collect(toImmutableList());
+    }
+    Map<UserModel, UserModel> representativesByProfile = new LinkedHashMap<>();
+    Map<UserModel, ImmutableList.Builder<Long>> memberUserIdsByProfile = new LinkedHashMap<>();
+    for (UserModel user : users) {
+      UserModel profile = profileOf(user);
+      representativesByProfile.putIfAbsent(profile, user);
+      memberUserIdsByProfile
+          .computeIfAbsent(profile, newProfile -> ImmutableList.builder())
+          .add(user.userId());
+    }
+    return representativesByProfile.keySet().stream()
+        .map(
+            profile ->
+                UserEquivalenceClassModel.builder()
+                    .setRepresentative(representativesByProfile.get(profile))
+                    .setMemberUserIds(memberUserIdsByProfile.get(profile).build())
+                    .build())
+        .collect(toImmutableList());
+  }
+
+  /** Return the representatives of userClasses in the same order. */
+  public static ImmutableList<UserModel> representatives(
+      List<UserEquivalenceClassModel> userClasses) {
+    return userClasses.stream()
+        .map(UserEquivalenceClassModel::representative)
+        .collect(toImmutableList());
+  }
+
+  /** Return user with a fixed user ID, so that users with the same profile are equal. */
+  public static UserModel profileOf(UserModel user) {
+    return user.toBuilder().setUserId(PROFILE_USER_ID).build();
+  }
+
+  public static boolean hasUniqueUserIds(List<UserModel> users) {
+    Set<Long> userIds = new HashSet<>();
+    for (UserModel user : users) {
+      if (!userIds.add(user.userId())) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
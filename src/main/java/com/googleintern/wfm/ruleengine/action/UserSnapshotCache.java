@@ -0,0 +1,244 @@
+package src.main.java.com.googleintern.wfm.ruleengine.action;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableLongArray;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.opencsv.exceptions.CsvException;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * UserSnapshotCache class is used to skip csv parsing on repeated runs over the same input file.
+ *
+ * <p>After the first parse, all {@link UserModel} are written to a binary snapshot file using
+ * protobuf varint encoding. Later reads load the snapshot instead of parsing the csv file again, as
+ * long as the input file still has the same size and last modified time, so a hit never reads the
+ * input file. The content is not checked: an edit that keeps both the size and the last modified
+ * time returns the users of the snapshot. Any mismatch or unreadable snapshot falls back to {@link
+ * CsvParser} and replaces the snapshot. If the snapshot cannot be written, the parsed users are
+ * still returned.
+ *
+ * <p>Snapshot layout: magic number, format version, input file size, last modified time, then for
+ * each user a continuation flag followed by the user fields. A false continuation flag ends the
+ * snapshot.
+ */
+public class UserSnapshotCache {
+  private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+  private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+  private static final int MAGIC_NUMBER = 0x57464d53;
+  private static final int FORMAT_VERSION = 3;
+
+  /**
+   * Read all data using csvFilePath. The snapshot is stored next to the input file.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(String csvFilePath)
+      throws IOException, CsvException {
+    return readFromCSVFile(csvFilePath, user -> true);
+  }
+
+  /**
+   * Read data using csvFilePath and keep only users accepted by userFilter. The snapshot is stored
+   * next to the input file and always holds all users.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(
+      String csvFilePath, Predicate<UserModel> userFilter) throws IOException, CsvException {
+    return readFromCSVFile(
+        csvFilePath, Paths.get(csvFilePath + SNAPSHOT_FILE_SUFFIX), userFilter);
+  }
+
+  /**
+   * Read data using csvFilePath and keep only users accepted by userFilter, using the snapshot at
+   * snapshotPath.
+   *
+   * @throws IOException
+   * @throws CsvException
+   */
+  public static ImmutableList<UserModel> readFromCSVFile(
+      String csvFilePath, Path snapshotPath, Predicate<UserModel> userFilter)
+      throws IOException, CsvException {
+    Path csvFile = Paths.get(csvFilePath);
+    Optional<ImmutableList<UserModel>> cachedUsers =
+        readSnapshot(csvFile, snapshotPath, userFilter);
+    if (cachedUsers.isPresent()) {
+      return cachedUsers.get();
+    }
+    return parseAndWriteSnapshot(csvFile, snapshotPath, userFilter);
+  }
+
+  private static Optional<ImmutableList<UserModel>> readSnapshot(
+      Path csvFile, Path snapshotPath, Predicate<UserModel> userFilter) throws IOException {
+    if (!Files.isRegularFile(snapshotPath)) {
+      return Optional.empty();
+    }
+    try (InputStream snapshotStream = new BufferedInputStream(Files.newInputStream(snapshotPath))) {
+      CodedInputStream input = CodedInputStream.newInstance(snapshotStream);
+      if (input.readFixed32() != MAGIC_NUMBER
+          || input.readUInt32() != FORMAT_VERSION
+          || input.readUInt64() != Files.size(csvFile)
+          || input.readInt64() != Files.getLastModifiedTime(csvFile).toMillis()) {
+        return Optional.empty();
+      }
+      ImmutableList.Builder<UserModel> usersBuilder = ImmutableList.builder();
+      while (input.readBool()) {
+        input.resetSizeCounter();
+        UserModel user = readUser(input);
+        if (userFilter.test(user)) {
+          usersBuilder.add(user);
+        }
+      }
+      return Optional.of(usersBuilder.build());
+    } catch (InvalidProtocolBufferException exception) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Parse the csv file and write every parsed user into a temporary snapshot in the same pass. The
+   * temporary snapshot replaces the previous one only if the csv file did not change meanwhile.
+   */
+  private static ImmutableList<UserModel> parseAndWriteSnapshot(
+      Path csvFile, Path snapshotPath, Predicate<UserModel> userFilter)
+      throws IOException, CsvException {
+    long fileSize = Files.size(csvFile);
+    long lastModifiedTime = Files.getLastModifiedTime(csvFile).toMillis();
+    Path temporarySnapshotPath;
+    try {
+      temporarySnapshotPath =
+          Files.createTempFile(
+              snapshotPath.toAbsolutePath().getParent(),
+              snapshotPath.getFileName().toString(),
+              TEMPORARY_FILE_SUFFIX);
+    } catch (IOException exception) {
+      return CsvParser.readFromCSVFile(csvFile.toString(), userFilter);
+    }
+    try {
+      ImmutableList.Builder<UserModel> usersBuilder = ImmutableList.builder();
+      boolean isSnapshotWritten = true;
+      try (Stream<UserModel> users = CsvParser.streamFromCSVFile(csvFile.toString())) {
+        Iterator<UserModel> usersIterator = users.iterator();
+        try (OutputStream snapshotStream =
+            new BufferedOutputStream(Files.newOutputStream(temporarySnapshotPath))) {
+          CodedOutputStream output = CodedOutputStream.newInstance(snapshotStream);
+          output.writeFixed32NoTag(MAGIC_NUMBER);
+          output.writeUInt32NoTag(FORMAT_VERSION);
+          output.writeUInt64NoTag(fileSize);
+          output.writeInt64NoTag(lastModifiedTime);
+          while (usersIterator.hasNext()) {
+            UserModel user = usersIterator.next();
+            if (userFilter.test(user)) {
+              usersBuilder.add(user);
+            }
+            output.writeBoolNoTag(true);
+            writeUser(output, user);
+          }
+          output.writeBoolNoTag(false);
+          output.flush();
+        } catch (IOException exception) {
+          isSnapshotWritten = false;
+          usersIterator.forEachRemaining(
+              user -> {
+                if (userFilter.test(user)) {
+                  usersBuilder.add(user);
+                }
+              });
+        }
+      } catch (UncheckedIOException exception) {
+        throw exception.getCause();
+      } catch (CsvParser.UncheckedCsvException exception) {
+        throw exception.getCause();
+      }
+      if (isSnapshotWritten
+          && Files.size(csvFile) == fileSize
+          && Files.getLastModifiedTime(csvFile).toMillis() == lastModifiedTime) {
+        try {
+          Files.move(
+              temporarySnapshotPath,
+              snapshotPath,
+              StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+          // The next run parses the csv file again.
+        }
+      }
+      return usersBuilder.build();
+    } finally {
+      Files.deleteIfExists(temporarySnapshotPath);
+    }
+  }
+
+  private static void writeUser(CodedOutputStream output, UserModel user) throws IOException {
+    output.writeSInt64NoTag(user.userId());
+    output.writeSInt64NoTag(user.workforceId());
+    output.writeSInt64NoTag(user.workgroupId());
+    writeIds(output, user.roleIds());
+    writeIds(output, user.skillIds());
+    writeIds(output, user.roleSkillIds());
+    output.writeUInt32NoTag(user.poolAssignments().size());
+    for (PoolAssignmentModel poolAssignment : user.poolAssignments()) {
+      output.writeUInt64NoTag(poolAssignment.casePoolId());
+      output.writeUInt64NoTag(poolAssignment.permissionSetId());
+    }
+  }
+
+  private static void writeIds(CodedOutputStream output, List<Long> ids) throws IOException {
+    output.writeUInt32NoTag(ids.size());
+    for (long id : ids) {
+      output.writeUInt64NoTag(id);
+    }
+  }
+
+  private static UserModel readUser(CodedInputStream input) throws IOException {
+    UserModel.Builder userBuilder =
+        UserModel.builder()
+            .setUserId(input.readSInt64())
+            .setWorkforceId(input.readSInt64())
+            .setWorkgroupId(input.readSInt64())
+            .setRoleIds(readIds(input).asList())
+            .setSkillIds(readIds(input).asList())
+            .setRoleSkillIds(readIds(input).asList());
+    int numberOfPoolAssignments = input.readUInt32();
+    ImmutableSet.Builder<PoolAssignmentModel> poolAssignmentsBuilder = ImmutableSet.builder();
+    for (int index = 0; index < numberOfPoolAssignments; index++) {
+      poolAssignmentsBuilder.add(
+          PoolAssignmentModel.builder()
+              .setCasePoolId(input.readUInt64())
+              .setPermissionSetId(input.readUInt64())
+              .build());
+    }
+    return userBuilder.setPoolAssignments(poolAssignmentsBuilder.build()).build();
+  }
+
+  private static ImmutableLongArray readIds(CodedInputStream input) throws IOException {
+    int numberOfIds = input.readUInt32();
+    ImmutableLongArray.Builder idsBuilder = ImmutableLongArray.builder(numberOfIds);
+    for (int index = 0; index < numberOfIds; index++) {
+      idsBuilder.add(input.readUInt64());
+    }
+    return idsBuilder.build();
+  }
+}
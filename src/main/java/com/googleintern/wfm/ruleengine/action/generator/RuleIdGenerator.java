@@ -1,17 +1,18 @@
 package src.main.java.com.googleintern.wfm.ruleengine.action.generator;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * RuleIdGenerator class is used to generate a valid rule ID for {@link
  * src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel}.
+ *
+ * <p>RuleIdGenerator is thread safe and hands out 0, 1, 2, ... IDs never repeat, but threads that
+ * share one generator get IDs in the order they call it.
  */
 public class RuleIdGenerator {
-  public long ruleId;
-
-  public RuleIdGenerator() {
-    this.ruleId = 0L;
-  }
+  private final AtomicLong nextRuleId = new AtomicLong(0L);
 
   public long getRuleId() {
-    return ruleId++;
+    return nextRuleId.getAndIncrement();
   }
 }
@@ -3,13 +3,14 @@ package src.main.java.com.googleintern.wfm.ruleengine.action.generator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.Sets;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
@@ -22,11 +23,12 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
  * <ol>
  *   <li>Step 1: Check the size of ({@link UserModel userPoolAssignmentsFromSameWorkGroupId}). If it
  *       does not have a valid size, return an empty set.
- *   <li>Step 2: Loop through all userPoolAssignments in the list and find their common {@link
- *       PoolAssignmentModel}. Store the finding results as an immutable set.
- *   <li>Step 3: Group the finding result from step 3 by Case Pool ID. Store the grouping results in
- *       an immutable set multimap where key represent Case Pool IDs and values represent Permission
- *       Set IDs.
+ *   <li>Step 2: Number the {@link PoolAssignmentModel} of the first user with dense codes and keep
+ *       them in a bitset. Loop through the other users and AND their pool assignments into the
+ *       bitset in place. Stop as soon as the bitset becomes empty.
+ *   <li>Step 3: Decode the common pool assignments left in the bitset and group them by Case Pool
+ *       ID in the same pass. Store the grouping results in an immutable set multimap where key
+ *       represent Case Pool IDs and values represent Permission Set IDs.
  *   <li>Step 4: Form Rules based on the grouping results from step 3.
  * </ol>
  */
@@ -37,10 +39,8 @@ public class WorkgroupIdRuleGenerator {
     if (userPoolAssignmentsFromSameWorkGroupId.size() == 0) {
       return ImmutableSet.of();
     }
-    ImmutableSet<PoolAssignmentModel> permissionIntersections =
-        findCommonPermissionsInsideOneWorkgroup(userPoolAssignmentsFromSameWorkGroupId);
     ImmutableSetMultimap<Long, Long> permissionGroup =
-        groupPermissionByCasePoolId(permissionIntersections);
+        findCommonPermissionsInsideOneWorkgroup(userPoolAssignmentsFromSameWorkGroupId);
     return createGeneralRuleForWorkgroupId(
         permissionGroup,
         userPoolAssignmentsFromSameWorkGroupId.get(0).workforceId(),
@@ -48,26 +48,64 @@ public class WorkgroupIdRuleGenerator {
         ruleIdGenerator);
   }
 
-  private static ImmutableSet<PoolAssignmentModel> findCommonPermissionsInsideOneWorkgroup(
+  /**
+   * Return the pool assignments shared by all users, as Permission Set IDs grouped by Case Pool ID.
+   * Only the first user's pool assignments can be common, so only they are given codes: the code
+   * of a pool assignment is its index in the first user's pool assignments.
+   */
+  private static ImmutableSetMultimap<Long, Long> findCommonPermissionsInsideOneWorkgroup(
       List<UserModel> userPoolAssignmentsFromSameWorkGroupId) {
-    return userPoolAssignmentsFromSameWorkGroupId.stream()
-        .map(userPoolAssignment -> userPoolAssignment.poolAssignments())
-        .reduce(
-            userPoolAssignmentsFromSameWorkGroupId.get(0).poolAssignments(),
-            (intersections, user) -> Sets.intersection(intersections, user).immutableCopy());
-  }
+    ImmutableList<PoolAssignmentModel> candidatePoolAssignments =
+        userPoolAssignmentsFromSameWorkGroupId.get(0).poolAssignments().asList();
+    int poolAssignmentCount = candidatePoolAssignments.size();
+    Map<PoolAssignmentModel, Integer> poolAssignmentCodes = new HashMap<>();
+    for (int code = 0; code < poolAssignmentCount; code++) {
+      poolAssignmentCodes.put(candidatePoolAssignments.get(code), code);
+    }
+    int wordCount = (poolAssignmentCount + Long.SIZE - 1) / Long.SIZE;
+    long[] commonPoolAssignments = new long[wordCount];
+    for (int code = 0; code < poolAssignmentCount; code++) {
+      commonPoolAssignments[code / Long.SIZE] |= 1L << code;
+    }
+
+    long[] userPoolAssignments = new long[wordCount];
+    for (int index = 1; index < userPoolAssignmentsFromSameWorkGroupId.size(); index++) {
+      Arrays.fill(userPoolAssignments, 0L);
+      for (PoolAssignmentModel poolAssignment :
+          userPoolAssignmentsFromSameWorkGroupId.get(index).poolAssignments()) {
+        Integer code = poolAssignmentCodes.get(poolAssignment);
+        if (code != null) {
+          userPoolAssignments[code / Long.SIZE] |= 1L << code;
+        }
+      }
+      if (!intersectInPlace(commonPoolAssignments, userPoolAssignments)) {
+        return ImmutableSetMultimap.of();
+      }
+    }
 
-  private static ImmutableSetMultimap<Long, Long> groupPermissionByCasePoolId(
-      Set<PoolAssignmentModel> permissions) {
     ImmutableSetMultimap.Builder<Long, Long> permissionSetIdsByCasePoolIdBuilder =
         ImmutableSetMultimap.builder();
-    for (PoolAssignmentModel permission : permissions) {
-      permissionSetIdsByCasePoolIdBuilder.put(
-          permission.casePoolId(), permission.permissionSetId());
+    for (int word = 0; word < wordCount; word++) {
+      for (long bits = commonPoolAssignments[word]; bits != 0; bits &= bits - 1) {
+        PoolAssignmentModel permission =
+            candidatePoolAssignments.get(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+        permissionSetIdsByCasePoolIdBuilder.put(
+            permission.casePoolId(), permission.permissionSetId());
+      }
     }
     return permissionSetIdsByCasePoolIdBuilder.build();
   }
 
+  /** AND other into bitset in place. Return whether any bit of bitset is still set. */
+  private static boolean intersectInPlace(long[] bitset, long[] other) {
+    long remainingBits = 0L;
+    for (int word = 0; word < bitset.length; word++) {
+      bitset[word] &= other[word];
+      remainingBits |= bitset[word];
+    }
+    return remainingBits != 0L;
+  }
+
   private static ImmutableSet<RuleModel> createGeneralRuleForWorkgroupId(
       ImmutableSetMultimap<Long, Long> permissions,
       Long workforceId,
@@ -9,8 +9,16 @@ import src.main.java.com.googleintern.wfm.ruleengine.action.generator.WorkgroupI
 import src.main.java.com.googleintern.wfm.ruleengine.model.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
@@ -25,7 +33,27 @@ public class RuleSuggestionServiceImplementation implements RuleSuggestionServic
       System.getProperty("user.home")
           + "/Project/wfm-rule-suggestion-engine/output/rule_suggestion_results.csv";
 
-  private static RuleIdGenerator RULE_ID_GENERATOR = new RuleIdGenerator();
+  private final ForkJoinPool pool;
+  private final boolean isParallel;
+
+  /** Remove conflict users on the common pool and generate rules one workgroup at a time. */
+  public RuleSuggestionServiceImplementation() {
+    this(ForkJoinPool.commonPool(), /* isParallel= */ false);
+  }
+
+  /**
+   * Remove conflict users, generate the rules of each workgroup, reduce the filters of each pool
+   * assignment and validate the rules in parallel on pool. Generated rules, rule IDs and the
+   * validation report are the same as with the sequential mode.
+   */
+  public RuleSuggestionServiceImplementation(ForkJoinPool pool) {
+    this(pool, /* isParallel= */ true);
+  }
+
+  private RuleSuggestionServiceImplementation(ForkJoinPool pool, boolean isParallel) {
+    this.pool = pool;
+    this.isParallel = isParallel;
+  }
 
   public static void main(String[] args) throws IOException, CsvException {
     RuleSuggestionServiceImplementation ruleSuggestion = new RuleSuggestionServiceImplementation();
@@ -38,14 +66,18 @@ public class RuleSuggestionServiceImplementation implements RuleSuggestionServic
    * <p>Steps:
    *
    * <ol>
-   *   <li>Step 1: Read user data from the input csvFilePath. Save the reading results in list as
-   *       {@link UserModel}.
-   *   <li>Step 2: Filter out valid {@link UserModel} data.
+   *   <li>Step 1: Read user data from the input csvFilePath, or from its binary snapshot if the
+   *       input file has not changed since the last run. Save the reading results in list as {@link
+   *       UserModel}.
+   *   <li>Step 2: Filter out valid {@link UserModel} data and group users with the same profile
+   *       into {@link UserEquivalenceClassModel}. Only one representative per class is used to
+   *       generate rules.
    *   <li>Step 3: Group valid user data by their work group ID.
    *   <li>Step 4: Find out general {@link RuleModel} that can cover all {@link UserModel} from the
    *       same work group ID.
    *   <li>Step 5: Group existing combinations of {@link FilterModel} from the same work group ID by
-   *       {@link PoolAssignmentModel}.
+   *       {@link PoolAssignmentModel}. Each combination is stored as a {@link PackedFilterGroup}
+   *       and converted back to {@link FilterModel} when rules are generated.
    *   <li>Step 6: Run reduction algorithm on each {@link PoolAssignmentModel} and generate {@link
    *       RuleModel} based on reduced results.
    *   <li>Step 7: Write generated rules into output file at CSV_OUTPUT_FILE_PATH location.
@@ -61,64 +93,183 @@ public class RuleSuggestionServiceImplementation implements RuleSuggestionServic
   @Override
   public String suggestRules(String csvFilePath, boolean assignMorePermissions)
       throws IOException, CsvException {
-    ImmutableList<UserModel> userPoolAssignments = CsvParser.readFromCSVFile(csvFilePath);
-
     ImmutableList<UserModel> usersWithValidWorkgroupId =
-        userPoolAssignments.stream()
-            .filter(user -> user.workgroupId() > 0)
-            .collect(toImmutableList());
+        UserSnapshotCache.readFromCSVFile(csvFilePath, user -> user.workgroupId() > 0);
+
+    ImmutableList<UserEquivalenceClassModel> userClasses =
+        UserDeduplication.groupByProfile(usersWithValidWorkgroupId);
 
-    ImmutableList<UserModel> validUsers =
+    ImmutableList<UserEquivalenceClassModel> validUserClasses =
         assignMorePermissions
-            ? usersWithValidWorkgroupId
-            : DataProcessor.removeConflictUsers(usersWithValidWorkgroupId);
+            ? userClasses
+            : DataProcessor.removeConflictUserClasses(userClasses, pool);
 
-    ImmutableSet<RuleModel> rules = suggestRules(validUsers);
+    ImmutableSet<RuleModel> rules =
+        generateRules(UserDeduplication.representatives(validUserClasses));
 
     ImmutableSet<RuleModel> concentratedRules = RuleConcentration.concentrate(rules);
 
     RuleValidation ruleValidation = new RuleValidation(usersWithValidWorkgroupId);
-    RuleValidationReport ruleValidationReport = ruleValidation.validate(concentratedRules);
+    RuleValidationReport ruleValidationReport =
+        isParallel
+            ? ruleValidation.validate(concentratedRules, pool)
+            : ruleValidation.validate(concentratedRules);
     ruleValidationReport.writeToCsvFile(CSV_OUTPUT_FILE_PATH);
     return ruleValidationReport.convertRuleValidationReportToString();
   }
 
-  private ImmutableSet<RuleModel> suggestRules(List<UserModel> validUserPoolAssignments) {
+  /**
+   * Generate the rules of validUserPoolAssignments, which are users without conflicts: steps 3 to
+   * 6 of {@link #suggestRules(String)}. The parallel mode returns the same rules with the same IDs
+   * in the same order as the sequential mode.
+   */
+  public ImmutableSet<RuleModel> generateRules(List<UserModel> validUserPoolAssignments) {
     if (validUserPoolAssignments.isEmpty()) {
       return ImmutableSet.of();
     }
     ImmutableListMultimap<Long, UserModel> usersByWorkgroupId =
         validUserPoolAssignments.stream()
             .collect(toImmutableListMultimap(user -> user.workgroupId(), user -> user));
-    ImmutableSet.Builder<RuleModel> rulesBuilder = ImmutableSet.builder();
-    for (Long workgroupId : usersByWorkgroupId.keySet()) {
-      ImmutableSet<RuleModel> workgroupIdRulesWithEmptyFilters =
-          WorkgroupIdRuleGenerator.generateWorkgroupIdRules(
-              usersByWorkgroupId.get(workgroupId), RULE_ID_GENERATOR);
-      rulesBuilder.addAll(workgroupIdRulesWithEmptyFilters);
-      ImmutableSet<PoolAssignmentModel> poolAssignmentCoveredByWorkgroupIdRules =
-          findPoolAssignmentsCoveredByRules(workgroupIdRulesWithEmptyFilters);
-
-      ImmutableSetMultimap<PoolAssignmentModel, ImmutableList<FilterModel>>
-          filtersByPoolAssignments =
-              CasePoolIdAndPermissionIdGroupingUtil.groupByCasePoolIdAndPermissionSetId(
-                  usersByWorkgroupId.get(workgroupId));
-
-      for (PoolAssignmentModel poolAssignment : filtersByPoolAssignments.keySet()) {
-        if (poolAssignmentCoveredByWorkgroupIdRules.contains(poolAssignment)) {
-          continue;
-        }
+    Long workforceId = validUserPoolAssignments.get(0).workforceId();
+    Interner<PackedFilterGroup> filterGroupInterner = Interners.newStrongInterner();
+    if (!isParallel) {
+      RuleIdGenerator ruleIdGenerator = new RuleIdGenerator();
+      ImmutableSet.Builder<RuleModel> rulesBuilder = ImmutableSet.builder();
+      for (Long workgroupId : usersByWorkgroupId.keySet()) {
         rulesBuilder.addAll(
-            reduceFiltersToCreateRules(
-                filtersByPoolAssignments,
-                poolAssignment,
-                validUserPoolAssignments.get(0).workforceId(),
-                workgroupId));
+            suggestRulesForWorkgroup(
+                usersByWorkgroupId.get(workgroupId),
+                workforceId,
+                workgroupId,
+                filterGroupInterner,
+                ruleIdGenerator));
       }
+      return rulesBuilder.build();
+    }
+
+    // Each task numbers its rules with its own throwaway generator. assignRuleIds replaces these
+    // IDs afterwards, so they only have to be valid until then.
+    ImmutableList<Long> workgroupIds = usersByWorkgroupId.keySet().asList();
+    ImmutableList<ImmutableSet<RuleModel>> rulesByWorkgroup =
+        supplyAllLargestFirst(
+            workgroupIds,
+            workgroupId -> usersByWorkgroupId.get(workgroupId).size(),
+            workgroupId ->
+                suggestRulesForWorkgroup(
+                    usersByWorkgroupId.get(workgroupId),
+                    workforceId,
+                    workgroupId,
+                    filterGroupInterner,
+                    new RuleIdGenerator()));
+    return assignRuleIds(rulesByWorkgroup, new RuleIdGenerator());
+  }
+
+  /**
+   * Generate the rules of one workgroup: general rules for the pool assignments that all users
+   * share, then reduced filter rules for the other pool assignments.
+   */
+  private ImmutableSet<RuleModel> suggestRulesForWorkgroup(
+      List<UserModel> usersFromSameWorkgroupId,
+      Long workforceId,
+      Long workgroupId,
+      Interner<PackedFilterGroup> filterGroupInterner,
+      RuleIdGenerator ruleIdGenerator) {
+    ImmutableSet.Builder<RuleModel> rulesBuilder = ImmutableSet.builder();
+    ImmutableSet<RuleModel> workgroupIdRulesWithEmptyFilters =
+        WorkgroupIdRuleGenerator.generateWorkgroupIdRules(
+            usersFromSameWorkgroupId, ruleIdGenerator);
+    rulesBuilder.addAll(workgroupIdRulesWithEmptyFilters);
+    ImmutableSet<PoolAssignmentModel> poolAssignmentCoveredByWorkgroupIdRules =
+        findPoolAssignmentsCoveredByRules(workgroupIdRulesWithEmptyFilters);
+
+    ImmutableSetMultimap<PoolAssignmentModel, PackedFilterGroup> filtersByPoolAssignments =
+        CasePoolIdAndPermissionIdGroupingUtil.groupPackedFiltersByCasePoolIdAndPermissionSetId(
+            usersFromSameWorkgroupId, filterGroupInterner);
+
+    ImmutableList<PoolAssignmentModel> poolAssignmentsToReduce =
+        filtersByPoolAssignments.keySet().stream()
+            .filter(
+                poolAssignment ->
+                    !poolAssignmentCoveredByWorkgroupIdRules.contains(poolAssignment))
+            .collect(toImmutableList());
+    ImmutableList<ImmutableList<PackedFilterGroup>> reducedFilters =
+        reduceFilters(filtersByPoolAssignments, poolAssignmentsToReduce);
+    for (int index = 0; index < poolAssignmentsToReduce.size(); index++) {
+      rulesBuilder.addAll(
+          createRules(
+              reducedFilters.get(index),
+              poolAssignmentsToReduce.get(index),
+              workforceId,
+              workgroupId,
+              ruleIdGenerator));
     }
     return rulesBuilder.build();
   }
 
+  /**
+   * Give the rules new IDs from ruleIdGenerator in workgroup order and in the order of each
+   * workgroup's rules. This is the order the sequential mode creates rules in, so both modes
+   * produce the same IDs no matter how many threads pool has.
+   */
+  private static ImmutableSet<RuleModel> assignRuleIds(
+      ImmutableList<ImmutableSet<RuleModel>> rulesByWorkgroup, RuleIdGenerator ruleIdGenerator) {
+    ImmutableSet.Builder<RuleModel> rulesBuilder = ImmutableSet.builder();
+    for (ImmutableSet<RuleModel> workgroupRules : rulesByWorkgroup) {
+      for (RuleModel rule : workgroupRules) {
+        rulesBuilder.add(rule.toBuilder().setRuleId(ruleIdGenerator.getRuleId()).build());
+      }
+    }
+    return rulesBuilder.build();
+  }
+
+  /**
+   * Reduce the filters of each pool assignment and return the results in the order of
+   * poolAssignments. In parallel mode, pool assignments with more filter groups are submitted
+   * first. Rules are created from the results afterwards in a fixed order.
+   */
+  private ImmutableList<ImmutableList<PackedFilterGroup>> reduceFilters(
+      SetMultimap<PoolAssignmentModel, PackedFilterGroup> filtersByPoolAssignment,
+      ImmutableList<PoolAssignmentModel> poolAssignments) {
+    if (!isParallel || poolAssignments.size() < 2) {
+      return poolAssignments.stream()
+          .map(
+              poolAssignment ->
+                  FiltersReduction.reducePackedFilters(filtersByPoolAssignment, poolAssignment))
+          .collect(toImmutableList());
+    }
+    return supplyAllLargestFirst(
+        poolAssignments,
+        poolAssignment -> filtersByPoolAssignment.get(poolAssignment).size(),
+        poolAssignment ->
+            FiltersReduction.reducePackedFilters(filtersByPoolAssignment, poolAssignment));
+  }
+
+  /**
+   * Run task on every input on pool, submitting inputs with a larger size first, and return the
+   * results in the order of inputs.
+   */
+  private <T, R> ImmutableList<R> supplyAllLargestFirst(
+      ImmutableList<T> inputs, ToIntFunction<T> size, Function<T, R> task) {
+    ImmutableList<Integer> indexesBySizeDescending =
+        IntStream.range(0, inputs.size())
+            .boxed()
+            .sorted(
+                Comparator.comparingInt((Integer index) -> size.applyAsInt(inputs.get(index)))
+                    .reversed())
+            .collect(toImmutableList());
+    ImmutableList<R> resultsBySize =
+        ParallelTaskRunner.supplyAll(
+            pool,
+            indexesBySizeDescending.stream()
+                .map(index -> (Supplier<R>) () -> task.apply(inputs.get(index)))
+                .collect(toImmutableList()));
+    List<R> results = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+    for (int rank = 0; rank < indexesBySizeDescending.size(); rank++) {
+      results.set(indexesBySizeDescending.get(rank), resultsBySize.get(rank));
+    }
+    return ImmutableList.copyOf(results);
+  }
+
   private ImmutableSet<PoolAssignmentModel> findPoolAssignmentsCoveredByRules(
       Set<RuleModel> generalRulesForWorkgroupId) {
     ImmutableSet.Builder<PoolAssignmentModel> coveredPoolAssignmentsBuilder =
@@ -135,14 +286,17 @@ public class RuleSuggestionServiceImplementation implements RuleSuggestionServic
     return coveredPoolAssignmentsBuilder.build();
   }
 
-  private ImmutableSet<RuleModel> reduceFiltersToCreateRules(
-      SetMultimap<PoolAssignmentModel, ImmutableList<FilterModel>> filterByPoolAssignment,
+  private ImmutableSet<RuleModel> createRules(
+      ImmutableList<PackedFilterGroup> reducedPackedFilters,
       PoolAssignmentModel poolAssignment,
       Long workforceId,
-      Long workgroupId) {
+      Long workgroupId,
+      RuleIdGenerator ruleIdGenerator) {
     ImmutableList<ImmutableSet<FilterModel>> reducedFilters =
-        FiltersReduction.reduce(filterByPoolAssignment, poolAssignment);
+        reducedPackedFilters.stream()
+            .map(PackedFilterGroup::toFilterModels)
+            .collect(toImmutableList());
     return CasePoolIdAndPermissionIdRuleGenerator.generateRules(
-        workforceId, workgroupId, poolAssignment, reducedFilters, RULE_ID_GENERATOR);
+        workforceId, workgroupId, poolAssignment, reducedFilters, ruleIdGenerator);
   }
 }
@@ -0,0 +1,75 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+/**
+ * CompactUserModel class is used to store the IDs of a {@link UserModel} as sorted long arrays
+ * without duplicates, so that subset and intersection checks are linear merges.
+ *
+ * <p>skillIds and roleSkillIds are kept apart for conflict checks. filterSkillIds merges both,
+ * since both become SKILL filters in rules.
+ */
+public final class CompactUserModel {
+  private final UserModel user;
+  private final long[] roleIds;
+  private final long[] skillIds;
+  private final long[] roleSkillIds;
+  private final long[] filterSkillIds;
+
+  private CompactUserModel(UserModel user) {
+    this.user = user;
+    this.roleIds = SortedLongArrays.toSortedDistinctArray(user.roleIds());
+    this.skillIds = SortedLongArrays.toSortedDistinctArray(user.skillIds());
+    this.roleSkillIds = SortedLongArrays.toSortedDistinctArray(user.roleSkillIds());
+    this.filterSkillIds =
+        SortedLongArrays.toSortedDistinctArray(user.skillIds(), user.roleSkillIds());
+  }
+
+  public static CompactUserModel of(UserModel user) {
+    return new CompactUserModel(user);
+  }
+
+  /** Return the {@link UserModel} this compact user was created from. */
+  public UserModel user() {
+    return user;
+  }
+
+  public long userId() {
+    return user.userId();
+  }
+
+  public long workforceId() {
+    return user.workforceId();
+  }
+
+  public long workgroupId() {
+    return user.workgroupId();
+  }
+
+  public boolean hasRoleId(long roleId) {
+    return SortedLongArrays.contains(roleIds, roleId);
+  }
+
+  /** Return whether skillId is one of the skill IDs or role skill IDs. */
+  public boolean hasFilterSkillId(long skillId) {
+    return SortedLongArrays.contains(filterSkillIds, skillId);
+  }
+
+  /** Return the sorted role IDs. The array is shared, so it must not be modified. */
+  long[] sortedRoleIds() {
+    return roleIds;
+  }
+
+  /** Return the sorted skill and role skill IDs. The array is shared and must not be modified. */
+  long[] sortedFilterSkillIds() {
+    return filterSkillIds;
+  }
+
+  /** Same result as {@link UserModel#isAConflictUser(UserModel)} on the source users. */
+  public boolean isAConflictUser(CompactUserModel comparedUser) {
+    return workforceId() == comparedUser.workforceId()
+        && workgroupId() == comparedUser.workgroupId()
+        && SortedLongArrays.containsAll(skillIds, comparedUser.skillIds)
+        && SortedLongArrays.containsAll(roleIds, comparedUser.roleIds)
+        && SortedLongArrays.containsAll(roleSkillIds, comparedUser.roleSkillIds)
+        && !user.poolAssignments().containsAll(comparedUser.user.poolAssignments());
+  }
+}
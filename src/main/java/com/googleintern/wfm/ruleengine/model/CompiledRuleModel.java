@@ -0,0 +1,113 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * CompiledRuleModel class is used to check many users against one {@link RuleModel} without
+ * allocating.
+ *
+ * <p>Each OR group of filters is stored as two sorted long arrays, one of role IDs and one of
+ * skill IDs. A user is matched against the sorted IDs of its {@link CompactUserModel}, so {@link
+ * #matches(CompactUserModel)} gives the same result as {@link
+ * RuleModel#isUserCoveredByRule(UserModel)}. The pool assignments of the rule are built once.
+ */
+public final class CompiledRuleModel {
+  private final RuleModel rule;
+  private final long workforceId;
+  private final long workgroupId;
+  private final long[][] roleIdsByGroup;
+  private final long[][] skillIdsByGroup;
+  private final ImmutableSet<PoolAssignmentModel> poolAssignments;
+
+  private CompiledRuleModel(RuleModel rule) {
+    this.rule = rule;
+    this.workforceId = rule.workforceId();
+    this.workgroupId = rule.workgroupId();
+    int groupCount = rule.filters().size();
+    this.roleIdsByGroup = new long[groupCount][];
+    this.skillIdsByGroup = new long[groupCount][];
+    for (int group = 0; group < groupCount; group++) {
+      roleIdsByGroup[group] = valuesOf(rule.filters().get(group), FilterModel.FilterType.ROLE);
+      skillIdsByGroup[group] = valuesOf(rule.filters().get(group), FilterModel.FilterType.SKILL);
+    }
+    ImmutableSet.Builder<PoolAssignmentModel> poolAssignmentsBuilder = ImmutableSet.builder();
+    for (long permissionSetId : rule.permissionSetIds()) {
+      poolAssignmentsBuilder.add(
+          PoolAssignmentModel.builder()
+              .setCasePoolId(rule.casePoolId())
+              .setPermissionSetId(permissionSetId)
+              .build());
+    }
+    this.poolAssignments = poolAssignmentsBuilder.build();
+  }
+
+  public static CompiledRuleModel of(RuleModel rule) {
+    return new CompiledRuleModel(rule);
+  }
+
+  /** Compile every rule of rules, keeping their order. */
+  public static ImmutableList<CompiledRuleModel> compileAll(Collection<RuleModel> rules) {
+    return rules.stream().map(CompiledRuleModel::of).collect(toImmutableList());
+  }
+
+  /** Return the {@link RuleModel} this rule was compiled from. */
+  public RuleModel rule() {
+    return rule;
+  }
+
+  /** Return the (Case Pool ID, Permission Set ID) pairs this rule assigns. */
+  public ImmutableSet<PoolAssignmentModel> poolAssignments() {
+    return poolAssignments;
+  }
+
+  long workforceId() {
+    return workforceId;
+  }
+
+  long workgroupId() {
+    return workgroupId;
+  }
+
+  /** Return the number of OR groups of filters. */
+  int groupCount() {
+    return roleIdsByGroup.length;
+  }
+
+  /** Return the sorted role IDs of group. The array is shared, so it must not be modified. */
+  long[] roleIdsOfGroup(int group) {
+    return roleIdsByGroup[group];
+  }
+
+  /** Return the sorted skill IDs of group. The array is shared, so it must not be modified. */
+  long[] skillIdsOfGroup(int group) {
+    return skillIdsByGroup[group];
+  }
+
+  /** Return whether user is in the rule's workgroup and matches every OR group of filters. */
+  public boolean matches(CompactUserModel user) {
+    if (workforceId != user.workforceId() || workgroupId != user.workgroupId()) {
+      return false;
+    }
+    for (int group = 0; group < roleIdsByGroup.length; group++) {
+      if (!SortedLongArrays.intersects(roleIdsByGroup[group], user.sortedRoleIds())
+          && !SortedLongArrays.intersects(
+              skillIdsByGroup[group], user.sortedFilterSkillIds())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long[] valuesOf(Collection<FilterModel> filters, FilterModel.FilterType type) {
+    return SortedLongArrays.sortDistinct(
+        filters.stream()
+            .filter(filter -> filter.type() == type)
+            .mapToLong(FilterModel::value)
+            .toArray());
+  }
+}
@@ -0,0 +1,77 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+
+/**
+ * LazyRuleValidationReport class is used to store a validation result whose sections are only
+ * computed when they are read.
+ *
+ * <p>The rule coverage is known up front. Every other section, the generated rules included, is
+ * built by its supplier on first access and kept for later calls, so a caller that only reads a
+ * few sections never pays for the per-user sets of the others. {@link #toReport()} reads all
+ * sections and returns the equal {@link RuleValidationReport}.
+ */
+public final class LazyRuleValidationReport {
+  private final Supplier<ImmutableSet<RuleModel>> generatedRules;
+  private final double ruleCoverage;
+  private final Supplier<ImmutableSetMultimap<UserModel, PoolAssignmentModel>>
+      assignedPoolAssignmentsByUsers;
+  private final Supplier<ImmutableSet<UserModel>> usersWithLessAssignedPermissions;
+  private final Supplier<ImmutableSet<UserModel>> usersWithMoreAssignedPermissions;
+  private final Supplier<ImmutableSet<PoolAssignmentModel>> uncoveredPoolAssignments;
+
+  public LazyRuleValidationReport(
+      Supplier<ImmutableSet<RuleModel>> generatedRules,
+      double ruleCoverage,
+      Supplier<ImmutableSetMultimap<UserModel, PoolAssignmentModel>>
+          assignedPoolAssignmentsByUsers,
+      Supplier<ImmutableSet<UserModel>> usersWithLessAssignedPermissions,
+      Supplier<ImmutableSet<UserModel>> usersWithMoreAssignedPermissions,
+      Supplier<ImmutableSet<PoolAssignmentModel>> uncoveredPoolAssignments) {
+    this.generatedRules = Suppliers.memoize(generatedRules);
+    this.ruleCoverage = ruleCoverage;
+    this.assignedPoolAssignmentsByUsers = Suppliers.memoize(assignedPoolAssignmentsByUsers);
+    this.usersWithLessAssignedPermissions = Suppliers.memoize(usersWithLessAssignedPermissions);
+    this.usersWithMoreAssignedPermissions = Suppliers.memoize(usersWithMoreAssignedPermissions);
+    this.uncoveredPoolAssignments = Suppliers.memoize(uncoveredPoolAssignments);
+  }
+
+  public ImmutableSet<RuleModel> generatedRules() {
+    return generatedRules.get();
+  }
+
+  public double ruleCoverage() {
+    return ruleCoverage;
+  }
+
+  public ImmutableSetMultimap<UserModel, PoolAssignmentModel> assignedPoolAssignmentsByUsers() {
+    return assignedPoolAssignmentsByUsers.get();
+  }
+
+  public ImmutableSet<UserModel> usersWithLessAssignedPermissions() {
+    return usersWithLessAssignedPermissions.get();
+  }
+
+  public ImmutableSet<UserModel> usersWithMoreAssignedPermissions() {
+    return usersWithMoreAssignedPermissions.get();
+  }
+
+  public ImmutableSet<PoolAssignmentModel> uncoveredPoolAssignments() {
+    return uncoveredPoolAssignments.get();
+  }
+
+  /** Compute every section that is not computed yet and return the full report. */
+  public RuleValidationReport toReport() {
+    return RuleValidationReport.builder()
+        .setGeneratedRules(generatedRules())
+        .setAssignedPoolAssignmentsByUsers(assignedPoolAssignmentsByUsers())
+        .setRuleCoverage(ruleCoverage)
+        .setUsersWithLessAssignedPermissions(usersWithLessAssignedPermissions())
+        .setUsersWithMoreAssignedPermissions(usersWithMoreAssignedPermissions())
+        .setUncoveredPoolAssignments(uncoveredPoolAssignments())
+        .build();
+  }
+}
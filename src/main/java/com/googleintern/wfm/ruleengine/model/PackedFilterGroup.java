@@ -0,0 +1,122 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * PackedFilterGroup class is used to store a group of {@link FilterModel} as a sorted long array
+ * without duplicates. Each filter is packed into one long: the filter type in the top bits and the
+ * ID in the lower 62 bits.
+ *
+ * <p>The hash is computed once, so groups are cheap to use as set and map keys. Groups are
+ * converted back to {@link FilterModel} only when rules are built.
+ */
+public final class PackedFilterGroup {
+  private static final int TYPE_SHIFT = 62;
+  private static final long VALUE_MASK = (1L << TYPE_SHIFT) - 1;
+  private static final FilterModel.FilterType[] FILTER_TYPES = FilterModel.FilterType.values();
+
+  private final long[] packedFilters;
+  private final int hash;
+
+  private PackedFilterGroup(long[] packedFilters) {
+    this.packedFilters = packedFilters;
+    this.hash = Arrays.hashCode(packedFilters);
+  }
+
+  /** Return a group of the given packed filters. Order and duplicates do not matter. */
+  public static PackedFilterGroup of(long... packedFilters) {
+    return new PackedFilterGroup(SortedLongArrays.sortDistinct(packedFilters.clone()));
+  }
+
+  public static PackedFilterGroup fromFilters(Collection<FilterModel> filters) {
+    long[] packedFilters = new long[filters.size()];
+    int index = 0;
+    for (FilterModel filter : filters) {
+      packedFilters[index++] = pack(filter);
+    }
+    return new PackedFilterGroup(SortedLongArrays.sortDistinct(packedFilters));
+  }
+
+  /** Return the filters of user: ROLE filters for role IDs, SKILL filters for the others. */
+  public static PackedFilterGroup fromUser(UserModel user) {
+    long[] packedFilters =
+        new long[user.roleIds().size() + user.skillIds().size() + user.roleSkillIds().size()];
+    int index = 0;
+    for (long roleId : user.roleIds()) {
+      packedFilters[index++] = pack(FilterModel.FilterType.ROLE, roleId);
+    }
+    for (long skillId : user.skillIds()) {
+      packedFilters[index++] = pack(FilterModel.FilterType.SKILL, skillId);
+    }
+    for (long roleSkillId : user.roleSkillIds()) {
+      packedFilters[index++] = pack(FilterModel.FilterType.SKILL, roleSkillId);
+    }
+    return new PackedFilterGroup(SortedLongArrays.sortDistinct(packedFilters));
+  }
+
+  public static long pack(FilterModel filter) {
+    return pack(filter.type(), filter.value());
+  }
+
+  public static long pack(FilterModel.FilterType type, long value) {
+    Preconditions.checkArgument(
+        value >= 0 && value <= VALUE_MASK, "Filter value %s cannot be packed.", value);
+    return ((long) type.ordinal() << TYPE_SHIFT) | value;
+  }
+
+  public static FilterModel unpack(long packedFilter) {
+    return FilterModel.builder()
+        .setType(FILTER_TYPES[(int) (packedFilter >>> TYPE_SHIFT)])
+        .setValue(packedFilter & VALUE_MASK)
+        .build();
+  }
+
+  public int size() {
+    return packedFilters.length;
+  }
+
+  /** Return the packed filter at index, in ascending order of packed filters. */
+  public long packedFilter(int index) {
+    return packedFilters[index];
+  }
+
+  /** Return whether every filter of subset is in this group. */
+  public boolean containsAll(PackedFilterGroup subset) {
+    return subset == this || SortedLongArrays.containsAll(packedFilters, subset.packedFilters);
+  }
+
+  /** Return the filters of this group, ROLE filters first and each type in ascending ID order. */
+  public ImmutableSet<FilterModel> toFilterModels() {
+    ImmutableSet.Builder<FilterModel> filtersBuilder = ImmutableSet.builder();
+    for (long packedFilter : packedFilters) {
+      filtersBuilder.add(unpack(packedFilter));
+    }
+    return filtersBuilder.build();
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object == this) {
+      return true;
+    }
+    if (!(object instanceof PackedFilterGroup)) {
+      return false;
+    }
+    PackedFilterGroup other = (PackedFilterGroup) object;
+    return hash == other.hash && Arrays.equals(packedFilters, other.packedFilters);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return toFilterModels().toString();
+  }
+}
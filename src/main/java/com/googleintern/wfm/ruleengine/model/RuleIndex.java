@@ -0,0 +1,234 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table;
+import com.google.common.primitives.ImmutableIntArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * RuleIndex class is used to find the {@link CompiledRuleModel} that a user matches without
+ * checking every rule.
+ *
+ * <p>Rules are partitioned by (Workforce ID, Workgroup ID), so rules of other workgroups are never
+ * looked at. Inside a partition, every OR group of every rule gets a slot, and each filter value
+ * points to the slots of the groups it appears in. A user's role IDs and skill IDs are looked up
+ * in these postings, and each newly satisfied slot adds one to the count of its rule. A rule
+ * matches when its count reaches its number of OR groups, so only rules sharing at least one
+ * filter with the user are touched. Rules without filters match every user of their workgroup.
+ */
+public final class RuleIndex {
+  private final ImmutableList<CompiledRuleModel> compiledRules;
+  private final ImmutableTable<Long, Long, Partition> partitionsByWorkgroup;
+  private final int maxRuleCount;
+  private final int maxSlotCount;
+
+  private RuleIndex(
+      ImmutableList<CompiledRuleModel> compiledRules,
+      ImmutableTable<Long, Long, Partition> partitionsByWorkgroup) {
+    this.compiledRules = compiledRules;
+    this.partitionsByWorkgroup = partitionsByWorkgroup;
+    this.maxRuleCount =
+        partitionsByWorkgroup.values().stream()
+            .mapToInt(partition -> partition.ruleIndexes.length)
+            .max()
+            .orElse(0);
+    this.maxSlotCount =
+        partitionsByWorkgroup.values().stream()
+            .mapToInt(partition -> partition.ruleOfSlot.length)
+            .max()
+            .orElse(0);
+  }
+
+  public static RuleIndex of(List<CompiledRuleModel> compiledRules) {
+    Table<Long, Long, List<Integer>> ruleIndexesByWorkgroup = HashBasedTable.create();
+    for (int ruleIndex = 0; ruleIndex < compiledRules.size(); ruleIndex++) {
+      CompiledRuleModel compiledRule = compiledRules.get(ruleIndex);
+      List<Integer> ruleIndexes =
+          ruleIndexesByWorkgroup.get(compiledRule.workforceId(), compiledRule.workgroupId());
+      if (ruleIndexes == null) {
+        ruleIndexes = new ArrayList<>();
+        ruleIndexesByWorkgroup.put(
+            compiledRule.workforceId(), compiledRule.workgroupId(), ruleIndexes);
+      }
+      ruleIndexes.add(ruleIndex);
+    }
+    ImmutableTable.Builder<Long, Long, Partition> partitionsBuilder = ImmutableTable.builder();
+    for (Table.Cell<Long, Long, List<Integer>> cell : ruleIndexesByWorkgroup.cellSet()) {
+      partitionsBuilder.put(
+          cell.getRowKey(), cell.getColumnKey(), new Partition(compiledRules, cell.getValue()));
+    }
+    return new RuleIndex(ImmutableList.copyOf(compiledRules), partitionsBuilder.build());
+  }
+
+  /** Return a new matcher. A matcher keeps scratch state, so each thread needs its own. */
+  public Matcher newMatcher() {
+    return new Matcher();
+  }
+
+  /** Matcher class is used to find the rules of a {@link RuleIndex} that users match. */
+  public final class Matcher {
+    private final int[] satisfiedGroupCounts = new int[maxRuleCount];
+    private final boolean[] isSlotSatisfied = new boolean[maxSlotCount];
+    private final int[] satisfiedSlots = new int[maxSlotCount];
+    private final int[] candidateRules = new int[maxRuleCount];
+    private final int[] matchedRules = new int[maxRuleCount];
+    private int satisfiedSlotCount = 0;
+    private int candidateRuleCount = 0;
+
+    private Matcher() {}
+
+    /**
+     * Pass every rule that user matches to ruleConsumer, in the order of the rules the index was
+     * created from.
+     */
+    public void forEachMatchingRule(
+        CompactUserModel user, Consumer<CompiledRuleModel> ruleConsumer) {
+      allMatchingRules(
+          user,
+          compiledRule -> {
+            ruleConsumer.accept(compiledRule);
+            return true;
+          });
+    }
+
+    /**
+     * Return whether every rule that user matches passes rulePredicate. The matching rules are
+     * found in full first, as in {@link #forEachMatchingRule}. They are then tested in the same
+     * order, and no rule is tested after the first that fails, so only the predicate calls are
+     * saved.
+     */
+    public boolean allMatchingRules(
+        CompactUserModel user, Predicate<CompiledRuleModel> rulePredicate) {
+      Partition partition = partitionsByWorkgroup.get(user.workforceId(), user.workgroupId());
+      if (partition == null) {
+        return true;
+      }
+      satisfyGroups(partition, partition.rolePostings, user.sortedRoleIds());
+      satisfyGroups(partition, partition.skillPostings, user.sortedFilterSkillIds());
+
+      int matchedRuleCount = partition.alwaysMatchedRules.length;
+      System.arraycopy(partition.alwaysMatchedRules, 0, matchedRules, 0, matchedRuleCount);
+      for (int candidate = 0; candidate < candidateRuleCount; candidate++) {
+        int rule = candidateRules[candidate];
+        if (satisfiedGroupCounts[rule] == partition.groupCounts[rule]) {
+          matchedRules[matchedRuleCount++] = rule;
+        }
+        satisfiedGroupCounts[rule] = 0;
+      }
+      for (int slot = 0; slot < satisfiedSlotCount; slot++) {
+        isSlotSatisfied[satisfiedSlots[slot]] = false;
+      }
+      candidateRuleCount = 0;
+      satisfiedSlotCount = 0;
+
+      Arrays.sort(matchedRules, 0, matchedRuleCount);
+      for (int matched = 0; matched < matchedRuleCount; matched++) {
+        if (!rulePredicate.test(compiledRules.get(partition.ruleIndexes[matchedRules[matched]]))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void satisfyGroups(Partition partition, Postings postings, long[] userIds) {
+      for (long userId : userIds) {
+        int value = Arrays.binarySearch(postings.values, userId);
+        if (value < 0) {
+          continue;
+        }
+        for (int entry = postings.offsets[value]; entry < postings.offsets[value + 1]; entry++) {
+          int slot = postings.slots[entry];
+          if (isSlotSatisfied[slot]) {
+            continue;
+          }
+          isSlotSatisfied[slot] = true;
+          satisfiedSlots[satisfiedSlotCount++] = slot;
+          int rule = partition.ruleOfSlot[slot];
+          if (satisfiedGroupCounts[rule]++ == 0) {
+            candidateRules[candidateRuleCount++] = rule;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Partition class is used to store the rules of one workgroup. Rules are numbered by their
+   * position in ruleIndexes, and OR groups by slots.
+   */
+  private static final class Partition {
+    private final int[] ruleIndexes;
+    private final int[] groupCounts;
+    private final int[] ruleOfSlot;
+    private final int[] alwaysMatchedRules;
+    private final Postings rolePostings;
+    private final Postings skillPostings;
+
+    private Partition(List<CompiledRuleModel> compiledRules, List<Integer> ruleIndexes) {
+      this.ruleIndexes = ruleIndexes.stream().mapToInt(Integer::intValue).toArray();
+      this.groupCounts = new int[ruleIndexes.size()];
+      ImmutableIntArray.Builder ruleOfSlotBuilder = ImmutableIntArray.builder();
+      ImmutableIntArray.Builder alwaysMatchedRulesBuilder = ImmutableIntArray.builder();
+      Map<Long, ImmutableIntArray.Builder> roleSlotsByValue = new TreeMap<>();
+      Map<Long, ImmutableIntArray.Builder> skillSlotsByValue = new TreeMap<>();
+      int slot = 0;
+      for (int rule = 0; rule < ruleIndexes.size(); rule++) {
+        CompiledRuleModel compiledRule = compiledRules.get(ruleIndexes.get(rule));
+        groupCounts[rule] = compiledRule.groupCount();
+        if (compiledRule.groupCount() == 0) {
+          alwaysMatchedRulesBuilder.add(rule);
+        }
+        for (int group = 0; group < compiledRule.groupCount(); group++, slot++) {
+          ruleOfSlotBuilder.add(rule);
+          addSlot(roleSlotsByValue, compiledRule.roleIdsOfGroup(group), slot);
+          addSlot(skillSlotsByValue, compiledRule.skillIdsOfGroup(group), slot);
+        }
+      }
+      this.ruleOfSlot = ruleOfSlotBuilder.build().toArray();
+      this.alwaysMatchedRules = alwaysMatchedRulesBuilder.build().toArray();
+      this.rolePostings = new Postings(roleSlotsByValue);
+      this.skillPostings = new Postings(skillSlotsByValue);
+    }
+
+    private static void addSlot(
+        Map<Long, ImmutableIntArray.Builder> slotsByValue, long[] values, int slot) {
+      for (long value : values) {
+        slotsByValue.computeIfAbsent(value, newValue -> ImmutableIntArray.builder()).add(slot);
+      }
+    }
+  }
+
+  /**
+   * Postings class is used to store the slots of each filter value. The slots of values[i] are
+   * slots[offsets[i]] to slots[offsets[i + 1] - 1].
+   */
+  private static final class Postings {
+    private final long[] values;
+    private final int[] offsets;
+    private final int[] slots;
+
+    private Postings(Map<Long, ImmutableIntArray.Builder> slotsByValue) {
+      this.values = new long[slotsByValue.size()];
+      this.offsets = new int[slotsByValue.size() + 1];
+      ImmutableIntArray.Builder slotsBuilder = ImmutableIntArray.builder();
+      int value = 0;
+      for (Map.Entry<Long, ImmutableIntArray.Builder> entry : slotsByValue.entrySet()) {
+        ImmutableIntArray valueSlots = entry.getValue().build();
+        values[value] = entry.getKey();
+        offsets[value + 1] = offsets[value] + valueSlots.length();
+        slotsBuilder.addAll(valueSlots);
+        value++;
+      }
+      this.slots = slotsBuilder.build().toArray();
+    }
+  }
+}
@@ -29,6 +29,8 @@ public abstract class RuleModel {
     return new AutoValue_RuleModel.Builder();
   }
 
+  public abstract Builder toBuilder();
+
   /** Builder class is used to set variables and create an instance for RuleModel class. */
   @AutoValue.Builder
   public abstract static class Builder {
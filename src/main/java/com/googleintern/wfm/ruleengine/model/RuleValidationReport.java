@@ -203,6 +203,8 @@ public abstract class RuleValidationReport {
   private ImmutableList<String[]> convertUsersWithIncorrectPoolAssignmentsToCsvRows(
       boolean isMorePermissions) {
     if (isMorePermissions) {
+      ImmutableSetMultimap<PoolAssignmentModel, CompiledRuleModel> rulesByPoolAssignments =
+          groupRulesByPoolAssignments();
       return usersWithMoreAssignedPermissions().stream()
           .map(
               user ->
@@ -211,7 +213,8 @@ public abstract class RuleValidationReport {
                       Sets.difference(
                               assignedPoolAssignmentsByUsers().get(user), user.poolAssignments())
                           .immutableCopy(),
-                      true))
+                      true,
+                      rulesByPoolAssignments))
           .collect(toImmutableList());
     } else {
       return usersWithLessAssignedPermissions().stream()
@@ -222,15 +225,17 @@ public abstract class RuleValidationReport {
                       Sets.difference(
                               user.poolAssignments(), assignedPoolAssignmentsByUsers().get(user))
                           .immutableCopy(),
-                      false))
+                      false,
+                      ImmutableSetMultimap.of()))
           .collect(toImmutableList());
     }
   }
 
-  private String[] convertUserWithIncorrectPoolAssignmentsToCsvRow(
+  private static String[] convertUserWithIncorrectPoolAssignmentsToCsvRow(
       UserModel user,
       ImmutableSet<PoolAssignmentModel> wrongAssignedPoolPermissions,
-      boolean isMorePermissions) {
+      boolean isMorePermissions,
+      ImmutableSetMultimap<PoolAssignmentModel, CompiledRuleModel> rulesByPoolAssignments) {
     String[] csvRow = new String[isMorePermissions ? 7 : 6];
     csvRow[0] = Long.toString(user.userId());
     csvRow[1] = Long.toString(user.workforceId());
@@ -242,7 +247,7 @@ public abstract class RuleValidationReport {
       csvRow[6] =
           convertRulesToCsvString(
               findRulesAssignedMorePermissions(
-                  groupRulesByPoolAssignments(), user, wrongAssignedPoolPermissions));
+                  rulesByPoolAssignments, user, wrongAssignedPoolPermissions));
     }
     return csvRow;
   }
@@ -282,33 +287,31 @@ public abstract class RuleValidationReport {
     return poolAssignmentsStringBuilder.toString();
   }
 
-  private ImmutableSetMultimap<PoolAssignmentModel, RuleModel> groupRulesByPoolAssignments() {
-    ImmutableSetMultimap.Builder<PoolAssignmentModel, RuleModel> rulesByPoolAssignmentsBuilder =
-        ImmutableSetMultimap.builder();
-    generatedRules()
-        .forEach(
-            rule ->
-                rule.permissionSetIds()
-                    .forEach(
-                        permissionSetId ->
-                            rulesByPoolAssignmentsBuilder.put(
-                                PoolAssignmentModel.builder()
-                                    .setCasePoolId(rule.casePoolId())
-                                    .setPermissionSetId(permissionSetId)
-                                    .build(),
-                                rule)));
+  private ImmutableSetMultimap<PoolAssignmentModel, CompiledRuleModel>
+      groupRulesByPoolAssignments() {
+    ImmutableSetMultimap.Builder<PoolAssignmentModel, CompiledRuleModel>
+        rulesByPoolAssignmentsBuilder = ImmutableSetMultimap.builder();
+    for (CompiledRuleModel compiledRule : CompiledRuleModel.compileAll(generatedRules())) {
+      compiledRule
+          .poolAssignments()
+          .forEach(
+              poolAssignment -> rulesByPoolAssignmentsBuilder.put(poolAssignment, compiledRule));
+    }
     return rulesByPoolAssignmentsBuilder.build();
   }
 
-  private ImmutableSet<RuleModel> findRulesAssignedMorePermissions(
-      ImmutableSetMultimap<PoolAssignmentModel, RuleModel> rulesByPoolAssignments,
+  private static ImmutableSet<RuleModel> findRulesAssignedMorePermissions(
+      ImmutableSetMultimap<PoolAssignmentModel, CompiledRuleModel> rulesByPoolAssignments,
       UserModel user,
       ImmutableSet<PoolAssignmentModel> poolAssignments) {
+    CompactUserModel compactUser = CompactUserModel.of(user);
     ImmutableSet.Builder<RuleModel> rulesAssignedMorePermissionsBuilder = ImmutableSet.builder();
     for (PoolAssignmentModel poolAssignment : poolAssignments) {
-      ImmutableSet<RuleModel> rules = rulesByPoolAssignments.get(poolAssignment);
-      rulesAssignedMorePermissionsBuilder.addAll(
-          rules.stream().filter(rule -> rule.isUserCoveredByRule(user)).collect(toImmutableSet()));
+      for (CompiledRuleModel compiledRule : rulesByPoolAssignments.get(poolAssignment)) {
+        if (compiledRule.matches(compactUser)) {
+          rulesAssignedMorePermissionsBuilder.add(compiledRule.rule());
+        }
+      }
     }
     return rulesAssignedMorePermissionsBuilder.build();
   }
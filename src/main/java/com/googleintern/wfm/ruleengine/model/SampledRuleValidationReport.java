@@ -0,0 +1,68 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+
+/**
+ * SampledRuleValidationReport class is used to store the estimated results of validating generated
+ * rules on a sample of users. Each rate comes with its 95% confidence interval.
+ */
+@AutoValue
+public abstract class SampledRuleValidationReport {
+  public abstract ImmutableSet<RuleModel> generatedRules();
+
+  /** Number of users the sample was drawn from. */
+  public abstract int numberOfUsers();
+
+  /** Number of users in the sample. */
+  public abstract int sampleSize();
+
+  /** Estimated % of users that get exactly their pool assignments. */
+  public abstract double ruleCoverage();
+
+  public abstract Range<Double> ruleCoverageInterval();
+
+  /** Estimated % of users that are missing some of their pool assignments. */
+  public abstract double lessAssignedPermissionsRate();
+
+  public abstract Range<Double> lessAssignedPermissionsRateInterval();
+
+  /** Estimated % of users that get pool assignments they should not have. */
+  public abstract double moreAssignedPermissionsRate();
+
+  public abstract Range<Double> moreAssignedPermissionsRateInterval();
+
+  public static Builder builder() {
+    return new AutoValue_SampledRuleValidationReport.Builder();
+  }
+
+  /**
+   * Builder class is used to set variables and create an instance for SampledRuleValidationReport
+   * class.
+   */
+  @AutoValue.Builder
+  public abstract static class Builder {
+    public abstract Builder setGeneratedRules(ImmutableSet<RuleModel> generatedRules);
+
+    public abstract Builder setNumberOfUsers(int numberOfUsers);
+
+    public abstract Builder setSampleSize(int sampleSize);
+
+    public abstract Builder setRuleCoverage(double ruleCoverage);
+
+    public abstract Builder setRuleCoverageInterval(Range<Double> ruleCoverageInterval);
+
+    public abstract Builder setLessAssignedPermissionsRate(double lessAssignedPermissionsRate);
+
+    public abstract Builder setLessAssignedPermissionsRateInterval(
+        Range<Double> lessAssignedPermissionsRateInterval);
+
+    public abstract Builder setMoreAssignedPermissionsRate(double moreAssignedPermissionsRate);
+
+    public abstract Builder setMoreAssignedPermissionsRateInterval(
+        Range<Double> moreAssignedPermissionsRateInterval);
+
+    public abstract SampledRuleValidationReport build();
+  }
+}
@@ -0,0 +1,84 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * SortedLongArrays class is used to build and compare sorted long arrays without duplicates.
+ * Subset and intersection checks are linear merges over both arrays.
+ */
+public class SortedLongArrays {
+  /** Return the distinct values of ids in ascending order. */
+  public static long[] toSortedDistinctArray(Collection<Long> ids) {
+    long[] values = new long[ids.size()];
+    int index = 0;
+    for (long id : ids) {
+      values[index++] = id;
+    }
+    return sortDistinct(values);
+  }
+
+  /** Return the distinct values of both collections in ascending order. */
+  public static long[] toSortedDistinctArray(Collection<Long> ids, Collection<Long> moreIds) {
+    long[] values = new long[ids.size() + moreIds.size()];
+    int index = 0;
+    for (long id : ids) {
+      values[index++] = id;
+    }
+    for (long id : moreIds) {
+      values[index++] = id;
+    }
+    return sortDistinct(values);
+  }
+
+  /** Return whether every value of subset is in superset. */
+  public static boolean containsAll(long[] superset, long[] subset) {
+    if (subset.length > superset.length) {
+      return false;
+    }
+    int supersetIndex = 0;
+    for (long value : subset) {
+      while (supersetIndex < superset.length && superset[supersetIndex] < value) {
+        supersetIndex++;
+      }
+      if (supersetIndex == superset.length || superset[supersetIndex] != value) {
+        return false;
+      }
+      supersetIndex++;
+    }
+    return true;
+  }
+
+  /** Return whether the two arrays share at least one value. */
+  public static boolean intersects(long[] first, long[] second) {
+    int firstIndex = 0;
+    int secondIndex = 0;
+    while (firstIndex < first.length && secondIndex < second.length) {
+      if (first[firstIndex] == second[secondIndex]) {
+        return true;
+      }
+      if (first[firstIndex] < second[secondIndex]) {
+        firstIndex++;
+      } else {
+        secondIndex++;
+      }
+    }
+    return false;
+  }
+
+  public static boolean contains(long[] values, long value) {
+    return Arrays.binarySearch(values, value) >= 0;
+  }
+
+  /** Sort values in place and return its distinct values, reusing values if there are none. */
+  public static long[] sortDistinct(long[] values) {
+    Arrays.sort(values);
+    int distinctCount = 0;
+    for (int index = 0; index < values.length; index++) {
+      if (distinctCount == 0 || values[distinctCount - 1] != values[index]) {
+        values[distinctCount++] = values[index];
+      }
+    }
+    return distinctCount == values.length ? values : Arrays.copyOf(values, distinctCount);
+  }
+}
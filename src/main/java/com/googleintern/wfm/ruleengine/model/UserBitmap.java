@@ -0,0 +1,242 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * UserBitmap class is used to store an immutable set of user indexes in [0, size).
+ *
+ * <p>Like the containers of a Roaring bitmap, a set is stored either as a sorted int array or as a
+ * bitset of size bits, whichever is smaller. Every operation picks the representation of its
+ * result again, so sets of a few users stay cheap while large sets are combined a word at a time.
+ */
+public final class UserBitmap {
+  /** A sorted int array takes this many bits per user, and a bitset one bit per index. */
+  private static final int BITS_PER_SPARSE_INDEX = Integer.SIZE;
+
+  private final int size;
+  private final int cardinality;
+  private final int[] sparseIndexes;
+  private final long[] denseWords;
+
+  private UserBitmap(int size, int cardinality, int[] sparseIndexes, long[] denseWords) {
+    this.size = size;
+    this.cardinality = cardinality;
+    this.sparseIndexes = sparseIndexes;
+    this.denseWords = denseWords;
+  }
+
+  /** Return the set of indexes, which must be in ascending order and in [0, size). */
+  public static UserBitmap of(int size, int... sortedIndexes) {
+    Preconditions.checkArgument(size >= 0, "Size must not be negative.");
+    for (int index = 0; index < sortedIndexes.length; index++) {
+      Preconditions.checkElementIndex(sortedIndexes[index], size);
+      Preconditions.checkArgument(
+          index == 0 || sortedIndexes[index - 1] < sortedIndexes[index],
+          "Indexes must be in strictly ascending order.");
+    }
+    return fromSortedIndexes(size, sortedIndexes.clone(), sortedIndexes.length);
+  }
+
+  /** Return the set of all indexes in [0, size). */
+  public static UserBitmap all(int size) {
+    Preconditions.checkArgument(size >= 0, "Size must not be negative.");
+    long[] words = new long[wordCount(size)];
+    Arrays.fill(words, -1L);
+    if (size % Long.SIZE != 0) {
+      words[words.length - 1] = (1L << size) - 1;
+    }
+    return fromWords(size, words);
+  }
+
+  /** Return the union of bitmaps, which must all have the given size. */
+  public static UserBitmap orAll(int size, List<UserBitmap> bitmaps) {
+    if (bitmaps.size() == 1) {
+      checkSameSize(size, bitmaps.get(0));
+      return bitmaps.get(0);
+    }
+    long[] words = new long[wordCount(size)];
+    for (UserBitmap bitmap : bitmaps) {
+      checkSameSize(size, bitmap);
+      bitmap.orInto(words);
+    }
+    return fromWords(size, words);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int cardinality() {
+    return cardinality;
+  }
+
+  public boolean isEmpty() {
+    return cardinality == 0;
+  }
+
+  public boolean contains(int index) {
+    if (index < 0 || index >= size) {
+      return false;
+    }
+    return denseWords != null
+        ? (denseWords[index / Long.SIZE] & (1L << index)) != 0
+        : Arrays.binarySearch(sparseIndexes, 0, cardinality, index) >= 0;
+  }
+
+  public UserBitmap and(UserBitmap other) {
+    checkSameSize(size, other);
+    if (denseWords != null && other.denseWords != null) {
+      long[] words = new long[denseWords.length];
+      for (int word = 0; word < words.length; word++) {
+        words[word] = denseWords[word] & other.denseWords[word];
+      }
+      return fromWords(size, words);
+    }
+    if (denseWords != null) {
+      return other.and(this);
+    }
+    int[] indexes = new int[cardinality];
+    int count = 0;
+    if (other.denseWords != null) {
+      for (int position = 0; position < cardinality; position++) {
+        if (other.contains(sparseIndexes[position])) {
+          indexes[count++] = sparseIndexes[position];
+        }
+      }
+      return fromSortedIndexes(size, indexes, count);
+    }
+    int position = 0;
+    int otherPosition = 0;
+    while (position < cardinality && otherPosition < other.cardinality) {
+      int index = sparseIndexes[position];
+      int otherIndex = other.sparseIndexes[otherPosition];
+      if (index == otherIndex) {
+        indexes[count++] = index;
+      }
+      if (index <= otherIndex) {
+        position++;
+      }
+      if (otherIndex <= index) {
+        otherPosition++;
+      }
+    }
+    return fromSortedIndexes(size, indexes, count);
+  }
+
+  public UserBitmap or(UserBitmap other) {
+    checkSameSize(size, other);
+    if (denseWords == null && other.denseWords == null) {
+      int[] indexes = new int[cardinality + other.cardinality];
+      int count = 0;
+      int position = 0;
+      int otherPosition = 0;
+      while (position < cardinality || otherPosition < other.cardinality) {
+        int index = position < cardinality ? sparseIndexes[position] : Integer.MAX_VALUE;
+        int otherIndex =
+            otherPosition < other.cardinality
+                ? other.sparseIndexes[otherPosition]
+                : Integer.MAX_VALUE;
+        indexes[count++] = Math.min(index, otherIndex);
+        if (index <= otherIndex) {
+          position++;
+        }
+        if (otherIndex <= index) {
+          otherPosition++;
+        }
+      }
+      return fromSortedIndexes(size, indexes, count);
+    }
+    long[] words = new long[wordCount(size)];
+    orInto(words);
+    other.orInto(words);
+    return fromWords(size, words);
+  }
+
+  /** Pass every index of this set to indexConsumer in ascending order. */
+  public void forEach(IntConsumer indexConsumer) {
+    if (denseWords == null) {
+      for (int position = 0; position < cardinality; position++) {
+        indexConsumer.accept(sparseIndexes[position]);
+      }
+      return;
+    }
+    for (int word = 0; word < denseWords.length; word++) {
+      for (long bits = denseWords[word]; bits != 0; bits &= bits - 1) {
+        indexConsumer.accept(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+      }
+    }
+  }
+
+  /** Return the indexes of this set in ascending order. */
+  public int[] toArray() {
+    if (denseWords == null) {
+      return Arrays.copyOf(sparseIndexes, cardinality);
+    }
+    int[] indexes = new int[cardinality];
+    int count = 0;
+    for (int word = 0; word < denseWords.length; word++) {
+      for (long bits = denseWords[word]; bits != 0; bits &= bits - 1) {
+        indexes[count++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+      }
+    }
+    return indexes;
+  }
+
+  private void orInto(long[] words) {
+    if (denseWords != null) {
+      for (int word = 0; word < words.length; word++) {
+        words[word] |= denseWords[word];
+      }
+      return;
+    }
+    for (int position = 0; position < cardinality; position++) {
+      words[sparseIndexes[position] / Long.SIZE] |= 1L << sparseIndexes[position];
+    }
+  }
+
+  private static UserBitmap fromSortedIndexes(int size, int[] indexes, int count) {
+    if (!isDenseSmaller(size, count)) {
+      return new UserBitmap(size, count, indexes, null);
+    }
+    long[] words = new long[wordCount(size)];
+    for (int position = 0; position < count; position++) {
+      words[indexes[position] / Long.SIZE] |= 1L << indexes[position];
+    }
+    return new UserBitmap(size, count, null, words);
+  }
+
+  private static UserBitmap fromWords(int size, long[] words) {
+    int cardinality = 0;
+    for (long word : words) {
+      cardinality += Long.bitCount(word);
+    }
+    if (isDenseSmaller(size, cardinality)) {
+      return new UserBitmap(size, cardinality, null, words);
+    }
+    int[] indexes = new int[cardinality];
+    int count = 0;
+    for (int word = 0; word < words.length; word++) {
+      for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+        indexes[count++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+      }
+    }
+    return new UserBitmap(size, cardinality, indexes, null);
+  }
+
+  private static boolean isDenseSmaller(int size, int cardinality) {
+    return (long) cardinality * BITS_PER_SPARSE_INDEX > size;
+  }
+
+  private static int wordCount(int size) {
+    return (size + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  private static void checkSameSize(int size, UserBitmap bitmap) {
+    Preconditions.checkArgument(
+        bitmap.size == size, "Bitmap size %s does not match %s.", bitmap.size, size);
+  }
+}
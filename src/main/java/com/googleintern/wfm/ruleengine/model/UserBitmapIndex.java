@@ -0,0 +1,123 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table;
+import com.google.common.primitives.ImmutableIntArray;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * UserBitmapIndex class is used to find the users covered by a {@link CompiledRuleModel} with set
+ * algebra instead of checking users one by one.
+ *
+ * <p>Users are partitioned by (Workforce ID, Workgroup ID). Inside a workgroup, each role ID and
+ * each skill ID has a {@link UserBitmap} of the users that have it. The users covered by a rule
+ * are the AND over its OR groups of the OR of the bitmaps of the group's filter values.
+ */
+public final class UserBitmapIndex {
+  private final ImmutableTable<Long, Long, WorkgroupBitmaps> bitmapsByWorkgroup;
+
+  private UserBitmapIndex(ImmutableTable<Long, Long, WorkgroupBitmaps> bitmapsByWorkgroup) {
+    this.bitmapsByWorkgroup = bitmapsByWorkgroup;
+  }
+
+  /** Create an index of users. Users are identified by their position in the list. */
+  public static UserBitmapIndex of(List<CompactUserModel> users) {
+    Table<Long, Long, List<Integer>> userIndexesByWorkgroup = HashBasedTable.create();
+    for (int userIndex = 0; userIndex < users.size(); userIndex++) {
+      CompactUserModel user = users.get(userIndex);
+      List<Integer> userIndexes =
+          userIndexesByWorkgroup.get(user.workforceId(), user.workgroupId());
+      if (userIndexes == null) {
+        userIndexes = new ArrayList<>();
+        userIndexesByWorkgroup.put(user.workforceId(), user.workgroupId(), userIndexes);
+      }
+      userIndexes.add(userIndex);
+    }
+    ImmutableTable.Builder<Long, Long, WorkgroupBitmaps> bitmapsBuilder = ImmutableTable.builder();
+    for (Table.Cell<Long, Long, List<Integer>> cell : userIndexesByWorkgroup.cellSet()) {
+      bitmapsBuilder.put(
+          cell.getRowKey(), cell.getColumnKey(), new WorkgroupBitmaps(users, cell.getValue()));
+    }
+    return new UserBitmapIndex(bitmapsBuilder.build());
+  }
+
+  /** Pass the index of every user covered by compiledRule to userIndexConsumer. */
+  public void forEachCoveredUser(CompiledRuleModel compiledRule, IntConsumer userIndexConsumer) {
+    WorkgroupBitmaps workgroupBitmaps =
+        bitmapsByWorkgroup.get(compiledRule.workforceId(), compiledRule.workgroupId());
+    if (workgroupBitmaps == null) {
+      return;
+    }
+    UserBitmap coveredUsers = workgroupBitmaps.allUsers;
+    for (int group = 0; group < compiledRule.groupCount() && !coveredUsers.isEmpty(); group++) {
+      List<UserBitmap> groupBitmaps = new ArrayList<>();
+      addBitmaps(workgroupBitmaps.usersByRoleId, compiledRule.roleIdsOfGroup(group), groupBitmaps);
+      addBitmaps(
+          workgroupBitmaps.usersBySkillId, compiledRule.skillIdsOfGroup(group), groupBitmaps);
+      coveredUsers =
+          groupBitmaps.isEmpty()
+              ? UserBitmap.of(coveredUsers.size())
+              : coveredUsers.and(UserBitmap.orAll(coveredUsers.size(), groupBitmaps));
+    }
+    coveredUsers.forEach(
+        position -> userIndexConsumer.accept(workgroupBitmaps.userIndexes[position]));
+  }
+
+  private static void addBitmaps(
+      ImmutableMap<Long, UserBitmap> usersById, long[] ids, List<UserBitmap> bitmaps) {
+    for (long id : ids) {
+      UserBitmap users = usersById.get(id);
+      if (users != null) {
+        bitmaps.add(users);
+      }
+    }
+  }
+
+  /**
+   * WorkgroupBitmaps class is used to store the bitmaps of one workgroup. Bitmaps hold positions
+   * in userIndexes.
+   */
+  private static final class WorkgroupBitmaps {
+    private final int[] userIndexes;
+    private final UserBitmap allUsers;
+    private final ImmutableMap<Long, UserBitmap> usersByRoleId;
+    private final ImmutableMap<Long, UserBitmap> usersBySkillId;
+
+    private WorkgroupBitmaps(List<CompactUserModel> users, List<Integer> userIndexes) {
+      this.userIndexes = userIndexes.stream().mapToInt(Integer::intValue).toArray();
+      this.allUsers = UserBitmap.all(userIndexes.size());
+      Map<Long, ImmutableIntArray.Builder> positionsByRoleId = new HashMap<>();
+      Map<Long, ImmutableIntArray.Builder> positionsBySkillId = new HashMap<>();
+      for (int position = 0; position < userIndexes.size(); position++) {
+        CompactUserModel user = users.get(userIndexes.get(position));
+        addPosition(positionsByRoleId, user.sortedRoleIds(), position);
+        addPosition(positionsBySkillId, user.sortedFilterSkillIds(), position);
+      }
+      this.usersByRoleId = toBitmaps(positionsByRoleId, userIndexes.size());
+      this.usersBySkillId = toBitmaps(positionsBySkillId, userIndexes.size());
+    }
+
+    private static void addPosition(
+        Map<Long, ImmutableIntArray.Builder> positionsById, long[] ids, int position) {
+      for (long id : ids) {
+        positionsById.computeIfAbsent(id, newId -> ImmutableIntArray.builder()).add(position);
+      }
+    }
+
+    private static ImmutableMap<Long, UserBitmap> toBitmaps(
+        Map<Long, ImmutableIntArray.Builder> positionsById, int size) {
+      ImmutableMap.Builder<Long, UserBitmap> bitmapsBuilder = ImmutableMap.builder();
+      positionsById.forEach(
+          (id, positions) ->
+              bitmapsBuilder.put(id, UserBitmap.of(size, positions.build().toArray())));
+      return bitmapsBuilder.build();
+    }
+  }
+}
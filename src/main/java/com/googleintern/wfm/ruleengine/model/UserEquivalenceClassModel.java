@@ -0,0 +1,49 @@
+package src.main.java.com.googleintern.wfm.ruleengine.model;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * UserEquivalenceClassModel class is used to store a group of users that have the same workforce
+ * ID, workgroup ID, role/skill/role skill IDs and pool assignments. Only their user IDs differ.
+ */
+@AutoValue
+public abstract class UserEquivalenceClassModel {
+  /** The first user of the group in input order. */
+  public abstract UserModel representative();
+
+  /** User IDs of all users in the group in input order, starting with the representative. */
+  public abstract ImmutableList<Long> memberUserIds();
+
+  public static Builder builder() {
+    return new AutoValue_UserEquivalenceClassModel.Builder();
+  }
+
+  /**
+   * Builder class is used to set variables and create an instance for UserEquivalenceClassModel
+   * class.
+   */
+  @AutoValue.Builder
+  public abstract static class Builder {
+    public abstract Builder setRepresentative(UserModel representative);
+
+    public abstract Builder setMemberUserIds(List<Long> memberUserIds);
+
+    public abstract UserEquivalenceClassModel build();
+  }
+
+  public int memberCount() {
+    return memberUserIds().size();
+  }
+
+  /** Recreate the {@link UserModel} of every member from the representative. */
+  public ImmutableList<UserModel> members() {
+    return memberUserIds().stream()
+        .map(userId -> representative().toBuilder().setUserId(userId).build())
+        .collect(toImmutableList());
+  }
+}
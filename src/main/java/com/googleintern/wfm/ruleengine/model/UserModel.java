@@ -30,6 +30,8 @@ public abstract class UserModel {
     return new AutoValue_UserModel.Builder();
   }
 
+  public abstract Builder toBuilder();
+
   /**
    * Builder class is used to set variables and create an instance for UserPoolAssignmentModel
    * class.
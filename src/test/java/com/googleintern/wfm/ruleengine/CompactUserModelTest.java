@@ -0,0 +1,159 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.opencsv.exceptions.CsvException;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.CsvParser;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompactUserModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompiledRuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.SortedLongArrays;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.io.IOException;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * CompactUserModelTest class is used to test that CompactUserModel and CompiledRuleModel classes
+ * give the same results as the {@link UserModel} and {@link RuleModel} methods on sets.
+ */
+public class CompactUserModelTest {
+  private static final PoolAssignmentModel POOL_ASSIGNMENT_0 =
+      PoolAssignmentModel.builder().setCasePoolId(2020L).setPermissionSetId(1111L).build();
+  private static final PoolAssignmentModel POOL_ASSIGNMENT_1 =
+      PoolAssignmentModel.builder().setCasePoolId(2020L).setPermissionSetId(2222L).build();
+
+  private static final UserModel USER_WITH_SKILL_ID =
+      UserModel.builder()
+          .setUserId(0L)
+          .setWorkforceId(1033L)
+          .setWorkgroupId(2020L)
+          .setRoleIds(ImmutableList.of(1111L))
+          .setSkillIds(ImmutableList.of(3333L, 2222L, 3333L))
+          .setRoleSkillIds(ImmutableList.of())
+          .setPoolAssignments(ImmutableSet.of(POOL_ASSIGNMENT_0))
+          .build();
+
+  private static final UserModel USER_WITH_ROLESKILL_ID =
+      UserModel.builder()
+          .setUserId(1L)
+          .setWorkforceId(1033L)
+          .setWorkgroupId(2020L)
+          .setRoleIds(ImmutableList.of(1111L))
+          .setSkillIds(ImmutableList.of(2222L))
+          .setRoleSkillIds(ImmutableList.of(3333L))
+          .setPoolAssignments(ImmutableSet.of(POOL_ASSIGNMENT_1))
+          .build();
+
+  @Test
+  public void sortedLongArraysTest() {
+    long[] values = SortedLongArrays.toSortedDistinctArray(ImmutableList.of(5L, 1L, 3L, 1L, 5L));
+    Assert.assertArrayEquals(new long[] {1L, 3L, 5L}, values);
+    Assert.assertTrue(SortedLongArrays.containsAll(values, new long[] {1L, 5L}));
+    Assert.assertTrue(SortedLongArrays.containsAll(values, new long[] {}));
+    Assert.assertFalse(SortedLongArrays.containsAll(values, new long[] {1L, 4L}));
+    Assert.assertFalse(SortedLongArrays.containsAll(values, new long[] {6L}));
+    Assert.assertTrue(SortedLongArrays.intersects(values, new long[] {0L, 2L, 5L}));
+    Assert.assertFalse(SortedLongArrays.intersects(values, new long[] {0L, 2L, 4L}));
+    Assert.assertTrue(SortedLongArrays.contains(values, 3L));
+    Assert.assertFalse(SortedLongArrays.contains(values, 4L));
+  }
+
+  @Test
+  public void skillIdsAndRoleSkillIdsAreComparedSeparatelyTest() {
+    CompactUserModel userWithSkillId = CompactUserModel.of(USER_WITH_SKILL_ID);
+    CompactUserModel userWithRoleSkillId = CompactUserModel.of(USER_WITH_ROLESKILL_ID);
+    Assert.assertFalse(USER_WITH_SKILL_ID.isAConflictUser(USER_WITH_ROLESKILL_ID));
+    Assert.assertFalse(userWithSkillId.isAConflictUser(userWithRoleSkillId));
+    Assert.assertTrue(userWithSkillId.hasFilterSkillId(3333L));
+    Assert.assertTrue(userWithRoleSkillId.hasFilterSkillId(3333L));
+  }
+
+  @Test
+  public void isAConflictUserTest() throws IOException, CsvException {
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      ImmutableList<UserModel> users = CsvParser.readFromCSVFile(csvFilePath);
+      ImmutableList<CompactUserModel> compactUsers =
+          users.stream().map(CompactUserModel::of).collect(toImmutableList());
+      for (int current = 0; current < users.size(); current++) {
+        for (int compared = 0; compared < users.size(); compared++) {
+          Assert.assertEquals(
+              users.get(current).isAConflictUser(users.get(compared)),
+              compactUsers.get(current).isAConflictUser(compactUsers.get(compared)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void compiledRuleMatchesTest() throws IOException, CsvException {
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      ImmutableList<UserModel> users = CsvParser.readFromCSVFile(csvFilePath);
+      ImmutableList<RuleModel> rules = createRules(users);
+      ImmutableList<CompiledRuleModel> compiledRules = CompiledRuleModel.compileAll(rules);
+      for (UserModel user : users) {
+        CompactUserModel compactUser = CompactUserModel.of(user);
+        for (int index = 0; index < rules.size(); index++) {
+          Assert.assertEquals(
+              rules.get(index).isUserCoveredByRule(user),
+              compiledRules.get(index).matches(compactUser));
+        }
+      }
+    }
+  }
+
+  /**
+   * Create rules from the IDs of every user: one rule with one OR-group per filter, one rule with a
+   * single OR-group of all filters and one rule without filters.
+   */
+  private static ImmutableList<RuleModel> createRules(ImmutableList<UserModel> users) {
+    ImmutableList.Builder<RuleModel> rulesBuilder = ImmutableList.builder();
+    for (UserModel user : users) {
+      ImmutableSet.Builder<FilterModel> filtersBuilder = ImmutableSet.builder();
+      user.roleIds()
+          .forEach(
+              roleId ->
+                  filtersBuilder.add(
+                      FilterModel.builder()
+                          .setType(FilterModel.FilterType.ROLE)
+                          .setValue(roleId)
+                          .build()));
+      user.skillIds()
+          .forEach(
+              skillId ->
+                  filtersBuilder.add(
+                      FilterModel.builder()
+                          .setType(FilterModel.FilterType.SKILL)
+                          .setValue(skillId)
+                          .build()));
+      user.roleSkillIds()
+          .forEach(
+              roleSkillId ->
+                  filtersBuilder.add(
+                      FilterModel.builder()
+                          .setType(FilterModel.FilterType.SKILL)
+                          .setValue(roleSkillId)
+                          .build()));
+      ImmutableSet<FilterModel> filters = filtersBuilder.build();
+      RuleModel.Builder ruleBuilder =
+          RuleModel.builder()
+              .setRuleId(0L)
+              .setWorkforceId(user.workforceId())
+              .setWorkgroupId(user.workgroupId())
+              .setCasePoolId(0L)
+              .setPermissionSetIds(ImmutableSet.of(0L));
+      rulesBuilder.add(
+          ruleBuilder
+              .setFilters(filters.stream().map(ImmutableSet::of).collect(toImmutableList()))
+              .build());
+      rulesBuilder.add(ruleBuilder.setFilters(ImmutableList.of(filters)).build());
+      rulesBuilder.add(ruleBuilder.setFilters(ImmutableList.of()).build());
+    }
+    return rulesBuilder.build();
+  }
+}
@@ -11,6 +11,9 @@ import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 /** CsvParserTest class is used to testing the functionality of CsvParser class. */
 public class CsvParserTest {
@@ -227,4 +230,25 @@ public class CsvParserTest {
         CsvParser.readFromCSVFile(TEST_CSV_FILE_PATH);
     Assert.assertEquals(EXPECTED_USERPOOLASSIGNMENTS, userPoolAssignments);
   }
+
+  @Test
+  public void parserStreamingTest() throws IOException {
+    try (Stream<UserModel> users = CsvParser.streamFromCSVFile(TEST_CSV_FILE_PATH)) {
+      Assert.assertEquals(EXPECTED_USERPOOLASSIGNMENTS, users.collect(toImmutableList()));
+    }
+  }
+
+  @Test
+  public void parserStreamingReadsLazilyTest() throws IOException {
+    try (Stream<UserModel> users = CsvParser.streamFromCSVFile(TEST_CSV_FILE_PATH)) {
+      Assert.assertEquals(Optional.of(EXPECTED_USERPOOLASSIGNMENT_CASE_0), users.findFirst());
+    }
+  }
+
+  @Test
+  public void parserReadingWithFilterTest() throws IOException, CsvException {
+    List<UserModel> userPoolAssignments =
+        CsvParser.readFromCSVFile(TEST_CSV_FILE_PATH, user -> user.workgroupId() > 0);
+    Assert.assertEquals(EXPECTED_USERPOOLASSIGNMENTS.subList(1, 6), userPoolAssignments);
+  }
 }
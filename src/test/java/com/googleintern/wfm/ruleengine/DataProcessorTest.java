@@ -8,6 +8,11 @@ import src.main.java.com.googleintern.wfm.ruleengine.action.DataProcessor;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 /** DataProcessorTest class is used to test the functionality of DataProcessing class. */
@@ -123,6 +128,13 @@ public class DataProcessorTest {
 
   private static final int EXPECTED_NUMBER_OF_USERS_USERS_WITH_EMPTY_INPUT = 0;
 
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+  private static final int NUMBER_OF_RANDOM_USERS = 600;
+  private static final int NUMBER_OF_RANDOM_WORKGROUPS = 3;
+  private static final int NUMBER_OF_RANDOM_IDS = 4;
+  private static final int RANDOM_ID_RARITY = 2;
+
   @Test
   public void filterInvalidWorkgroupIdTest() {
     ImmutableList<UserModel> validUsers =
@@ -165,4 +177,76 @@ public class DataProcessorTest {
     Assert.assertEquals(EXPECTED_NUMBER_OF_USERS_USERS_WITH_EMPTY_INPUT, validUsers.size());
     Assert.assertTrue(validUsers.equals(ImmutableList.of()));
   }
+
+  @Test
+  public void filterConflictDataInParallelTest() {
+    Assert.assertEquals(
+        EXPECTED_USERS_WITHOUT_CONFLICTS,
+        DataProcessor.removeConflictUsers(INPUT_USERS_INCLUDE_CONFLICTS_1, POOL));
+    Assert.assertEquals(
+        EXPECTED_USERS_WITHOUT_CONFLICTS,
+        DataProcessor.removeConflictUsers(INPUT_USERS_INCLUDE_CONFLICTS_2, POOL));
+    Assert.assertEquals(
+        ImmutableList.of(), DataProcessor.removeConflictUsers(ImmutableList.of(), POOL));
+  }
+
+  @Test
+  public void filterConflictDataWithRandomInputTest() {
+    Random random = new Random(2020L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random,
+            NUMBER_OF_RANDOM_USERS,
+            NUMBER_OF_RANDOM_WORKGROUPS,
+            NUMBER_OF_RANDOM_IDS,
+            RANDOM_ID_RARITY);
+    ImmutableList<UserModel> expectedUsers = removeConflictUsersWithoutPartitions(users);
+    Assert.assertEquals(expectedUsers, DataProcessor.removeConflictUsers(users));
+    Assert.assertEquals(expectedUsers, DataProcessor.removeConflictUsers(users, POOL));
+  }
+
+  @Test
+  public void filterConflictDataWithDuplicateUserIdsTest() {
+    Random random = new Random(2021L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+                random,
+                NUMBER_OF_RANDOM_USERS,
+                NUMBER_OF_RANDOM_WORKGROUPS,
+                NUMBER_OF_RANDOM_IDS,
+                RANDOM_ID_RARITY)
+            .stream()
+            .map(
+                user ->
+                    user.toBuilder()
+                        .setUserId(random.nextInt(NUMBER_OF_RANDOM_USERS / 4))
+                        .setWorkforceId(TestData.WORKFORCE_ID + random.nextInt(2))
+                        .build())
+            .collect(toImmutableList());
+    ImmutableList<UserModel> expectedUsers = removeConflictUsersWithoutPartitions(users);
+    Assert.assertEquals(expectedUsers, DataProcessor.removeConflictUsers(users));
+    Assert.assertEquals(expectedUsers, DataProcessor.removeConflictUsers(users, POOL));
+  }
+
+  /** Conflict user removal over all users at once, as DataProcessor did before partitioning. */
+  private static ImmutableList<UserModel> removeConflictUsersWithoutPartitions(
+      ImmutableList<UserModel> users) {
+    Set<Long> dirtyUsers = new HashSet<>();
+    for (UserModel currentUser : users) {
+      if (dirtyUsers.contains(currentUser.userId())) {
+        continue;
+      }
+      Set<Long> conflictUsers = new HashSet<>();
+      for (UserModel comparedUser : users) {
+        if (!dirtyUsers.contains(comparedUser.userId())
+            && currentUser.isAConflictUser(comparedUser)) {
+          conflictUsers.add(comparedUser.userId());
+        }
+      }
+      dirtyUsers.addAll(conflictUsers);
+    }
+    return users.stream()
+        .filter(user -> !dirtyUsers.contains(user.userId()))
+        .collect(toImmutableList());
+  }
 }
@@ -7,8 +7,16 @@ import org.junit.Assert;
 import org.junit.Test;
 import src.main.java.com.googleintern.wfm.ruleengine.action.FiltersReduction;
 import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PackedFilterGroup;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 /** FilterReductionTest class is used to test the functionality of FilterReduction class. */
 public class FilterReductionTest {
 
@@ -25,6 +33,9 @@ public class FilterReductionTest {
   private static final FilterModel FILTER_5 =
       FilterModel.builder().setType(FilterModel.FilterType.ROLE).setValue(6666L).build();
 
+  private static final int NUMBER_OF_RANDOM_ROUNDS = 200;
+  private static final int NUMBER_OF_RANDOM_FILTER_GROUPS = 40;
+
   private static final Long CASE_POOL_ID = 44667L;
 
   private static final Long PERMISSION_SET_ID = 11067L;
@@ -95,4 +106,82 @@ public class FilterReductionTest {
         EXPECTED_NUMBER_OF_REDUCED_FILTER_WITH_NONEXISTENT_POOL_ASSIGNMENT, reducedFilters.size());
     Assert.assertTrue(reducedFilters.equals(ImmutableList.of()));
   }
+
+  @Test
+  public void reducePackedFiltersTest() {
+    ImmutableSetMultimap<PoolAssignmentModel, PackedFilterGroup> packedFiltersByPoolAssignments =
+        ImmutableSetMultimap.<PoolAssignmentModel, PackedFilterGroup>builder()
+            .putAll(
+                POOL_ASSIGNMENT,
+                FILTERS.stream().map(PackedFilterGroup::fromFilters).collect(toImmutableList()))
+            .build();
+    ImmutableList<PackedFilterGroup> reducedFilters =
+        FiltersReduction.reducePackedFilters(packedFiltersByPoolAssignments, POOL_ASSIGNMENT);
+    Assert.assertEquals(
+        EXPECTED_REDUCED_FILTERS,
+        reducedFilters.stream().map(PackedFilterGroup::toFilterModels).collect(toImmutableList()));
+    Assert.assertEquals(
+        ImmutableList.of(),
+        FiltersReduction.reducePackedFilters(
+            packedFiltersByPoolAssignments, NONEXISTENT_POOL_ASSIGNMENT));
+  }
+
+  @Test
+  public void reduceWithRandomInputTest() {
+    Random random = new Random(2020L);
+    for (int round = 0; round < NUMBER_OF_RANDOM_ROUNDS; round++) {
+      ImmutableSet<ImmutableList<FilterModel>> filters = createRandomFilters(random);
+      ImmutableSetMultimap<PoolAssignmentModel, ImmutableList<FilterModel>>
+          filtersByPoolAssignments =
+              ImmutableSetMultimap.<PoolAssignmentModel, ImmutableList<FilterModel>>builder()
+                  .putAll(POOL_ASSIGNMENT, filters)
+                  .build();
+      ImmutableList<ImmutableSet<FilterModel>> expectedReducedFilters =
+          reduceByUpdatingReducedFilters(filters);
+
+      ImmutableList<ImmutableSet<FilterModel>> reducedFilters =
+          FiltersReduction.reduce(filtersByPoolAssignments, POOL_ASSIGNMENT);
+      Assert.assertEquals(expectedReducedFilters, reducedFilters);
+      for (int index = 0; index < reducedFilters.size(); index++) {
+        Assert.assertEquals(
+            expectedReducedFilters.get(index).asList(), reducedFilters.get(index).asList());
+      }
+    }
+  }
+
+  private static ImmutableSet<ImmutableList<FilterModel>> createRandomFilters(Random random) {
+    ImmutableList<FilterModel> allFilters =
+        ImmutableList.of(FILTER_0, FILTER_1, FILTER_2, FILTER_3, FILTER_4, FILTER_5);
+    ImmutableSet.Builder<ImmutableList<FilterModel>> filtersBuilder = ImmutableSet.builder();
+    for (int index = 0; index < NUMBER_OF_RANDOM_FILTER_GROUPS; index++) {
+      List<FilterModel> filterGroup = new ArrayList<>();
+      for (FilterModel filter : allFilters) {
+        if (random.nextInt(3) > 0) {
+          filterGroup.add(filter);
+        }
+      }
+      Collections.shuffle(filterGroup, random);
+      filtersBuilder.add(ImmutableList.copyOf(filterGroup));
+    }
+    return filtersBuilder.build();
+  }
+
+  /** Reduction by updating a list of reduced filter groups, as FiltersReduction did before. */
+  private static ImmutableList<ImmutableSet<FilterModel>> reduceByUpdatingReducedFilters(
+      ImmutableSet<ImmutableList<FilterModel>> filters) {
+    List<ImmutableSet<FilterModel>> reducedFilters = new ArrayList<>();
+    for (ImmutableList<FilterModel> currentFilters : filters) {
+      ImmutableList<ImmutableSet<FilterModel>> filtersContainingCurrentFilters =
+          reducedFilters.stream()
+              .filter(reduced -> reduced.containsAll(currentFilters))
+              .collect(toImmutableList());
+      boolean isCurrentFiltersCoveredByReducedFilters =
+          reducedFilters.stream().anyMatch(reduced -> currentFilters.containsAll(reduced));
+      if (!filtersContainingCurrentFilters.isEmpty() || !isCurrentFiltersCoveredByReducedFilters) {
+        reducedFilters.removeAll(filtersContainingCurrentFilters);
+        reducedFilters.add(ImmutableSet.copyOf(currentFilters));
+      }
+    }
+    return ImmutableList.copyOf(reducedFilters);
+  }
 }
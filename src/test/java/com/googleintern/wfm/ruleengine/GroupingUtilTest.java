@@ -3,18 +3,24 @@ package src.test.java.com.googleintern.wfm.ruleengine;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.opencsv.exceptions.CsvException;
 import org.junit.Assert;
 import org.junit.Test;
 import src.main.java.com.googleintern.wfm.ruleengine.action.CasePoolIdAndPermissionIdGroupingUtil;
 import src.main.java.com.googleintern.wfm.ruleengine.action.CsvParser;
 import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PackedFilterGroup;
 import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
 
 /**
  * GroupingUtilTest class is used to test the functionality of the
@@ -132,4 +138,55 @@ public class GroupingUtilTest {
             mapByWorkGroupId.get(EXPECTED_SECOND_WORKGROUP_ID));
     Assert.assertEquals(EXPECTED_SECOND_PERMISSION_GROUP, secondPermissionGroup);
   }
+
+  @Test
+  public void groupPackedFiltersByCasePoolIdAndPermissionSetIdTest()
+      throws IOException, CsvException {
+    ImmutableList<UserModel> userPoolAssignments = CsvParser.readFromCSVFile(TEST_CSV_FILE_PATH);
+    ImmutableListMultimap<Long, UserModel> mapByWorkGroupId =
+        userPoolAssignments.stream()
+            .collect(toImmutableListMultimap(user -> user.workgroupId(), user -> user));
+
+    for (Long workgroupId : mapByWorkGroupId.keySet()) {
+      ImmutableSetMultimap<PoolAssignmentModel, PackedFilterGroup> expectedPermissionGroup =
+          CasePoolIdAndPermissionIdGroupingUtil.groupByCasePoolIdAndPermissionSetId(
+                  mapByWorkGroupId.get(workgroupId))
+              .entries().stream()
+              .collect(
+                  toImmutableSetMultimap(
+                      entry -> entry.getKey(),
+                      entry -> PackedFilterGroup.fromFilters(entry.getValue())));
+      Assert.assertEquals(
+          expectedPermissionGroup,
+          CasePoolIdAndPermissionIdGroupingUtil.groupPackedFiltersByCasePoolIdAndPermissionSetId(
+              mapByWorkGroupId.get(workgroupId)));
+    }
+  }
+
+  @Test
+  public void equalFilterGroupsShareOneInstanceTest() throws IOException, CsvException {
+    ImmutableList<UserModel> userPoolAssignments = CsvParser.readFromCSVFile(TEST_CSV_FILE_PATH);
+    ImmutableList<UserModel> usersWithCopies =
+        ImmutableList.<UserModel>builder()
+            .addAll(userPoolAssignments)
+            .addAll(userPoolAssignments)
+            .build();
+    Interner<PackedFilterGroup> filterGroupInterner = Interners.newStrongInterner();
+
+    assertEqualValuesAreSame(
+        CasePoolIdAndPermissionIdGroupingUtil.groupPackedFiltersByCasePoolIdAndPermissionSetId(
+            usersWithCopies, filterGroupInterner));
+    for (UserModel user : userPoolAssignments) {
+      Assert.assertSame(
+          filterGroupInterner.intern(PackedFilterGroup.fromUser(user)),
+          filterGroupInterner.intern(PackedFilterGroup.fromUser(user)));
+    }
+  }
+
+  private static <V> void assertEqualValuesAreSame(ImmutableSetMultimap<?, V> multimap) {
+    Map<V, V> canonicalValues = new HashMap<>();
+    for (V value : multimap.values()) {
+      Assert.assertSame(canonicalValues.computeIfAbsent(value, newValue -> newValue), value);
+    }
+  }
 }
@@ -0,0 +1,148 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvException;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.IdColumnScanner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * IdColumnScannerTest class is used to test that IdColumnScanner class extracts the same IDs as the
+ * regex based parsing it replaced.
+ */
+public class IdColumnScannerTest {
+  private static final int ROLE_ID_COLUMN = 1;
+  private static final int SKILL_ID_COLUMN = 2;
+  private static final int ROLESKILL_ID_COLUMN = 3;
+  private static final int POOL_ASSIGNMENT_COLUMN = 6;
+
+  /** Regex patterns used by the previous CsvParser implementation. */
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("(\\d+)");
+
+  private static final Pattern ROLESKILL_PATTERN = Pattern.compile("\"skill_id\":\"(\\d+)\"");
+  private static final Pattern PERMISSION_PATTERN =
+      Pattern.compile("\"cases_pool_id\":\"(\\d+)\",\"permission_set_id\":\"(\\d+)\"");
+
+  /** Malformed or unusual column values. */
+  private static final ImmutableList<String> EDGE_CASE_DATA =
+      ImmutableList.of(
+          "",
+          "[]",
+          "[0,007,42]",
+          "[{\"skill_id\":\"\"},{\"skill_id\":\"12\"},{\"skill_id\":\"3a\"}]",
+          "[{\"proficiency\":5,\"skill_id\":\"1990\"},{\"skill_id\":\"1991\"}]",
+          "[{\"cases_pool_id\":\"1\",\"permission_set_id\":\"\"},"
+              + "{\"cases_pool_id\":\"2\",\"permission_set_id\":\"3\"},"
+              + "{\"cases_pool_id\":\"4\",\"permission_set_id\":\"5x\"},"
+              + "{\"cases_pool_id\":\"\"\"cases_pool_id\":\"6\",\"permission_set_id\":\"7\"}]");
+
+  @Test
+  public void scanNumbersTest() throws IOException, CsvException {
+    for (String data : readColumns(ROLE_ID_COLUMN, SKILL_ID_COLUMN)) {
+      Assert.assertEquals(scanNumbersWithRegex(data), scanNumbers(data));
+    }
+  }
+
+  @Test
+  public void scanRoleSkillIdsTest() throws IOException, CsvException {
+    for (String data : readColumns(ROLESKILL_ID_COLUMN)) {
+      Assert.assertEquals(scanRoleSkillIdsWithRegex(data), scanRoleSkillIds(data));
+    }
+  }
+
+  @Test
+  public void scanPoolAssignmentsTest() throws IOException, CsvException {
+    for (String data : readColumns(POOL_ASSIGNMENT_COLUMN)) {
+      Assert.assertEquals(scanPoolAssignmentsWithRegex(data), scanPoolAssignments(data));
+    }
+  }
+
+  @Test
+  public void scanEdgeCasesTest() {
+    for (String data : EDGE_CASE_DATA) {
+      Assert.assertEquals(scanNumbersWithRegex(data), scanNumbers(data));
+      Assert.assertEquals(scanRoleSkillIdsWithRegex(data), scanRoleSkillIds(data));
+      Assert.assertEquals(scanPoolAssignmentsWithRegex(data), scanPoolAssignments(data));
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void scanNumbersOutOfRangeTest() {
+    scanNumbers("[99999999999999999999]");
+  }
+
+  private static ImmutableList<String> readColumns(int... columns)
+      throws IOException, CsvException {
+    ImmutableList.Builder<String> columnDataBuilder = ImmutableList.builder();
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      CSVReader csvReader =
+          new CSVReaderBuilder(Files.newBufferedReader(Paths.get(csvFilePath)))
+              .withSkipLines(1)
+              .build();
+      List<String[]> records = csvReader.readAll();
+      csvReader.close();
+      for (String[] record : records) {
+        for (int column : columns) {
+          columnDataBuilder.add(record[column]);
+        }
+      }
+    }
+    return columnDataBuilder.build();
+  }
+
+  private static ImmutableList<Long> scanNumbers(String data) {
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    IdColumnScanner.scanNumbers(data, idsBuilder::add);
+    return idsBuilder.build();
+  }
+
+  private static ImmutableList<Long> scanRoleSkillIds(String data) {
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    IdColumnScanner.scanRoleSkillIds(data, idsBuilder::add);
+    return idsBuilder.build();
+  }
+
+  private static ImmutableList<Long> scanPoolAssignments(String data) {
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    IdColumnScanner.scanPoolAssignments(
+        data,
+        (casePoolId, permissionSetId) -> idsBuilder.add(casePoolId).add(permissionSetId));
+    return idsBuilder.build();
+  }
+
+  private static ImmutableList<Long> scanNumbersWithRegex(String data) {
+    Matcher matcher = NUMBER_PATTERN.matcher(data);
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    while (matcher.find()) {
+      idsBuilder.add(Long.parseLong(matcher.group()));
+    }
+    return idsBuilder.build();
+  }
+
+  private static ImmutableList<Long> scanRoleSkillIdsWithRegex(String data) {
+    Matcher matcher = ROLESKILL_PATTERN.matcher(data);
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    while (matcher.find()) {
+      idsBuilder.add(Long.parseLong(matcher.group(1)));
+    }
+    return idsBuilder.build();
+  }
+
+  private static ImmutableList<Long> scanPoolAssignmentsWithRegex(String data) {
+    Matcher matcher = PERMISSION_PATTERN.matcher(data);
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    while (matcher.find()) {
+      idsBuilder.add(Long.parseLong(matcher.group(1))).add(Long.parseLong(matcher.group(2)));
+    }
+    return idsBuilder.build();
+  }
+}
@@ -0,0 +1,109 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.IncrementalRuleValidation;
+import src.main.java.com.googleintern.wfm.ruleengine.action.RuleValidation;
+import src.main.java.com.googleintern.wfm.ruleengine.model.LazyRuleValidationReport;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleValidationReport;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * IncrementalRuleValidationTest class is used to test that IncrementalRuleValidation class keeps
+ * the same report as validating all rules again after every change.
+ */
+public class IncrementalRuleValidationTest {
+  private static final int NUMBER_OF_USERS = 1000;
+  private static final int NUMBER_OF_RULES = 60;
+  private static final int NUMBER_OF_CHANGES = 200;
+  private static final int NUMBER_OF_WORKGROUPS = 2;
+  private static final int NUMBER_OF_IDS = 4;
+  private static final int ID_RARITY = 3;
+
+  @Test
+  public void addAndRemoveRulesTest() {
+    Random random = new Random(2020L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random, NUMBER_OF_USERS, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY);
+    ImmutableList<RuleModel> rules =
+        TestData.createRandomRules(
+            random, NUMBER_OF_RULES, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY);
+    RuleValidation ruleValidation = new RuleValidation(users);
+    IncrementalRuleValidation incrementalRuleValidation = new IncrementalRuleValidation(users);
+    assertSameReport(ruleValidation, incrementalRuleValidation);
+
+    List<RuleModel> currentRules = new ArrayList<>();
+    for (int change = 0; change < NUMBER_OF_CHANGES; change++) {
+      RuleModel rule = rules.get(random.nextInt(rules.size()));
+      if (currentRules.contains(rule)) {
+        Assert.assertTrue(incrementalRuleValidation.removeRule(rule));
+        Assert.assertFalse(incrementalRuleValidation.removeRule(rule));
+        currentRules.remove(rule);
+      } else {
+        Assert.assertTrue(incrementalRuleValidation.addRule(rule));
+        Assert.assertFalse(incrementalRuleValidation.addRule(rule));
+        currentRules.add(rule);
+      }
+      Assert.assertEquals(ImmutableSet.copyOf(currentRules), incrementalRuleValidation.rules());
+      assertSameReport(ruleValidation, incrementalRuleValidation);
+    }
+  }
+
+  @Test
+  public void ofTest() {
+    Random random = new Random(2021L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random, NUMBER_OF_USERS, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY);
+    ImmutableSet<RuleModel> rules =
+        ImmutableSet.copyOf(
+            TestData.createRandomRules(
+                random, NUMBER_OF_RULES, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY));
+
+    Assert.assertEquals(
+        new RuleValidation(users).validate(rules),
+        IncrementalRuleValidation.of(users, rules).report().toReport());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void reportAfterChangeTest() {
+    Random random = new Random(2022L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random, NUMBER_OF_USERS, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY);
+    ImmutableList<RuleModel> rules =
+        TestData.createRandomRules(
+            random, NUMBER_OF_RULES, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY);
+    ImmutableSet<RuleModel> initialRules = ImmutableSet.copyOf(rules.subList(1, rules.size()));
+    RuleValidationReport expectedReport = new RuleValidation(users).validate(initialRules);
+    IncrementalRuleValidation incrementalRuleValidation =
+        IncrementalRuleValidation.of(users, initialRules);
+    LazyRuleValidationReport report = incrementalRuleValidation.report();
+    Assert.assertEquals(
+        expectedReport.usersWithLessAssignedPermissions(),
+        report.usersWithLessAssignedPermissions());
+
+    incrementalRuleValidation.addRule(rules.get(0));
+    Assert.assertEquals(
+        expectedReport.usersWithMoreAssignedPermissions(),
+        report.usersWithMoreAssignedPermissions());
+    report.generatedRules();
+  }
+
+  private static void assertSameReport(
+      RuleValidation ruleValidation, IncrementalRuleValidation incrementalRuleValidation) {
+    RuleValidationReport expectedReport =
+        ruleValidation.validate(incrementalRuleValidation.rules());
+    Assert.assertEquals(expectedReport, incrementalRuleValidation.report().toReport());
+    Assert.assertEquals(
+        expectedReport.ruleCoverage(), incrementalRuleValidation.ruleCoverage(), 0);
+  }
+}
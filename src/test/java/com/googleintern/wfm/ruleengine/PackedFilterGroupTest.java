@@ -0,0 +1,71 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PackedFilterGroup;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+/** PackedFilterGroupTest class is used to test the functionality of PackedFilterGroup class. */
+public class PackedFilterGroupTest {
+  private static final FilterModel ROLE_FILTER =
+      FilterModel.builder().setType(FilterModel.FilterType.ROLE).setValue(2222L).build();
+  private static final FilterModel SKILL_FILTER_0 =
+      FilterModel.builder().setType(FilterModel.FilterType.SKILL).setValue(1111L).build();
+  private static final FilterModel SKILL_FILTER_1 =
+      FilterModel.builder().setType(FilterModel.FilterType.SKILL).setValue(2222L).build();
+
+  private static final UserModel USER =
+      UserModel.builder()
+          .setUserId(0L)
+          .setWorkforceId(1033L)
+          .setWorkgroupId(2020L)
+          .setRoleIds(ImmutableList.of(2222L))
+          .setSkillIds(ImmutableList.of(2222L, 1111L))
+          .setRoleSkillIds(ImmutableList.of(1111L))
+          .setPoolAssignments(ImmutableSet.of())
+          .build();
+
+  @Test
+  public void packTest() {
+    for (FilterModel filter : ImmutableList.of(ROLE_FILTER, SKILL_FILTER_0, SKILL_FILTER_1)) {
+      Assert.assertEquals(filter, PackedFilterGroup.unpack(PackedFilterGroup.pack(filter)));
+    }
+    Assert.assertNotEquals(
+        PackedFilterGroup.pack(ROLE_FILTER), PackedFilterGroup.pack(SKILL_FILTER_1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void packNegativeValueTest() {
+    PackedFilterGroup.pack(FilterModel.FilterType.ROLE, -1L);
+  }
+
+  @Test
+  public void fromUserTest() {
+    PackedFilterGroup filters = PackedFilterGroup.fromUser(USER);
+    Assert.assertEquals(3, filters.size());
+    Assert.assertEquals(
+        PackedFilterGroup.fromFilters(
+            ImmutableList.of(SKILL_FILTER_1, ROLE_FILTER, SKILL_FILTER_0, SKILL_FILTER_0)),
+        filters);
+    Assert.assertEquals(
+        ImmutableList.of(ROLE_FILTER, SKILL_FILTER_0, SKILL_FILTER_1),
+        filters.toFilterModels().asList());
+  }
+
+  @Test
+  public void containsAllTest() {
+    PackedFilterGroup filters = PackedFilterGroup.fromUser(USER);
+    Assert.assertTrue(
+        filters.containsAll(PackedFilterGroup.fromFilters(ImmutableList.of(SKILL_FILTER_0))));
+    Assert.assertTrue(filters.containsAll(PackedFilterGroup.of()));
+    Assert.assertFalse(
+        PackedFilterGroup.fromFilters(ImmutableList.of(ROLE_FILTER, SKILL_FILTER_0))
+            .containsAll(filters));
+    Assert.assertFalse(
+        PackedFilterGroup.fromFilters(ImmutableList.of(SKILL_FILTER_1))
+            .containsAll(PackedFilterGroup.fromFilters(ImmutableList.of(ROLE_FILTER))));
+  }
+}
@@ -0,0 +1,85 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.opencsv.exceptions.CsvException;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.CsvParser;
+import src.main.java.com.googleintern.wfm.ruleengine.action.ParallelCsvParser;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/** ParallelCsvParserTest class is used to test the functionality of ParallelCsvParser class. */
+public class ParallelCsvParserTest {
+  /** Records with quoted line breaks, so that naive splitting at line feeds breaks records. */
+  private static final String CSV_WITH_QUOTED_LINE_BREAKS =
+      "id,role_ids,skills,role_skills,workforce_id,workgroup_id,pool_assignments\n"
+          + "0,\"[2020,\n2019]\",\"[{\"\"skill_id\"\":\"\"2000\"\"}]\",[],1024,1122,"
+          + "\"[{\"\"cases_pool_id\"\":\"\"2000543\"\",\"\"permission_set_id\"\":\"\"2048\"\"}]\"\n"
+          + "1,[2018],\"[{\"\"skill_id\"\":\n\"\"1990\"\"},\n{\"\"skill_id\"\":\"\"1991\"\"}]\","
+          + "[],1024,1122,\"[{\"\"cases_pool_id\"\":\"\"2000555\"\","
+          + "\"\"permission_set_id\"\":\"\"2048\"\"}]\"\r\n"
+          + "2,[],[],\"[{\"\"proficiency\"\":0,\"\"skill_id\"\":\"\"1990\"\"}]\",1024,2233,[]\n";
+
+  private static final int MAX_CHUNK_COUNT = 64;
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+  @Test
+  public void parallelReadingTest() throws IOException, CsvException {
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      ImmutableList<UserModel> expectedUsers = CsvParser.readFromCSVFile(csvFilePath);
+      Assert.assertEquals(expectedUsers, ParallelCsvParser.readFromCSVFile(csvFilePath, POOL));
+      for (int chunkCount = 1; chunkCount <= MAX_CHUNK_COUNT; chunkCount++) {
+        Assert.assertEquals(
+            expectedUsers,
+            ParallelCsvParser.readFromCSVFile(csvFilePath, user -> true, POOL, chunkCount));
+      }
+    }
+  }
+
+  @Test
+  public void parallelReadingWithQuotedLineBreaksTest() throws IOException, CsvException {
+    Path csvFile = Files.createTempFile("parallel_csv_parser_test", ".csv");
+    try {
+      Files.write(csvFile, CSV_WITH_QUOTED_LINE_BREAKS.getBytes(StandardCharsets.UTF_8));
+      ImmutableList<UserModel> expectedUsers = CsvParser.readFromCSVFile(csvFile.toString());
+      Assert.assertEquals(3, expectedUsers.size());
+      for (int chunkCount = 1; chunkCount <= MAX_CHUNK_COUNT; chunkCount++) {
+        Assert.assertEquals(
+            expectedUsers,
+            ParallelCsvParser.readFromCSVFile(csvFile.toString(), user -> true, POOL, chunkCount));
+      }
+    } finally {
+      Files.delete(csvFile);
+    }
+  }
+
+  @Test
+  public void parallelReadingWithFilterTest() throws IOException, CsvException {
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      for (int chunkCount = 1; chunkCount <= MAX_CHUNK_COUNT; chunkCount++) {
+        Assert.assertEquals(
+            CsvParser.readFromCSVFile(csvFilePath, user -> user.workgroupId() > 0),
+            ParallelCsvParser.readFromCSVFile(
+                csvFilePath, user -> user.workgroupId() > 0, POOL, chunkCount));
+      }
+    }
+  }
+
+  @Test
+  public void parallelReadingWithEmptyFileTest() throws IOException, CsvException {
+    Path csvFile = Files.createTempFile("parallel_csv_parser_test", ".csv");
+    try {
+      Assert.assertEquals(
+          ImmutableList.of(), ParallelCsvParser.readFromCSVFile(csvFile.toString(), POOL));
+    } finally {
+      Files.delete(csvFile);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.generator.RuleIdGenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** RuleIdGeneratorTest class is used to test the functionality of RuleIdGenerator class. */
+public class RuleIdGeneratorTest {
+  private static final int NUMBER_OF_THREADS = 4;
+  private static final int NUMBER_OF_IDS_PER_THREAD = 5000;
+
+  @Test
+  public void getRuleIdTest() {
+    RuleIdGenerator ruleIdGenerator = new RuleIdGenerator();
+    for (long expectedRuleId = 0; expectedRuleId < 10; expectedRuleId++) {
+      Assert.assertEquals(expectedRuleId, ruleIdGenerator.getRuleId());
+    }
+  }
+
+  @Test
+  public void concurrentGetRuleIdTest() throws Exception {
+    RuleIdGenerator ruleIdGenerator = new RuleIdGenerator();
+    ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    List<Future<List<Long>>> futures = new ArrayList<>();
+    try {
+      for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  List<Long> ruleIds = new ArrayList<>();
+                  for (int index = 0; index < NUMBER_OF_IDS_PER_THREAD; index++) {
+                    ruleIds.add(ruleIdGenerator.getRuleId());
+                  }
+                  return ruleIds;
+                }));
+      }
+      Set<Long> ruleIds = new HashSet<>();
+      for (Future<List<Long>> future : futures) {
+        for (long ruleId : future.get()) {
+          Assert.assertTrue(ruleIds.add(ruleId));
+        }
+      }
+      Assert.assertEquals(NUMBER_OF_THREADS * NUMBER_OF_IDS_PER_THREAD, ruleIds.size());
+      Assert.assertTrue(ruleIds.stream().allMatch(ruleId -> ruleId < ruleIds.size()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompactUserModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.CompiledRuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleIndex;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.Random;
+
+/** RuleIndexTest class is used to test the functionality of RuleIndex class. */
+public class RuleIndexTest {
+  private static final int NUMBER_OF_RULES = 300;
+  private static final int NUMBER_OF_USERS = 1000;
+  private static final int NUMBER_OF_IDS = 8;
+  private static final int ID_RARITY = 4;
+
+  private static final UserModel USER =
+      UserModel.builder()
+          .setUserId(0L)
+          .setWorkforceId(1033L)
+          .setWorkgroupId(2020L)
+          .setRoleIds(ImmutableList.of(1L))
+          .setSkillIds(ImmutableList.of(2L))
+          .setRoleSkillIds(ImmutableList.of(3L))
+          .setPoolAssignments(ImmutableSet.of())
+          .build();
+
+  @Test
+  public void forEachMatchingRuleTest() {
+    RuleModel ruleWithoutFilters = createRule(0L, 2020L, ImmutableList.of());
+    RuleModel ruleOfOtherWorkgroup = createRule(1L, 3030L, ImmutableList.of());
+    RuleModel ruleWithRoleSkillFilter =
+        createRule(
+            2L,
+            2020L,
+            ImmutableList.of(
+                ImmutableSet.of(createFilter(FilterModel.FilterType.ROLE, 1L)),
+                ImmutableSet.of(createFilter(FilterModel.FilterType.SKILL, 3L))));
+    RuleModel ruleWithUnmatchedGroup =
+        createRule(
+            3L,
+            2020L,
+            ImmutableList.of(
+                ImmutableSet.of(createFilter(FilterModel.FilterType.ROLE, 1L)),
+                ImmutableSet.of(createFilter(FilterModel.FilterType.ROLE, 2L))));
+    RuleModel ruleWithEmptyGroup = createRule(4L, 2020L, ImmutableList.of(ImmutableSet.of()));
+
+    Assert.assertEquals(
+        ImmutableList.of(ruleWithoutFilters, ruleWithRoleSkillFilter),
+        findMatchingRules(
+            ImmutableList.of(
+                ruleWithoutFilters,
+                ruleOfOtherWorkgroup,
+                ruleWithRoleSkillFilter,
+                ruleWithUnmatchedGroup,
+                ruleWithEmptyGroup),
+            USER));
+  }
+
+  @Test
+  public void allMatchingRulesTest() {
+    RuleModel firstRule = createRule(0L, 2020L, ImmutableList.of());
+    RuleModel secondRule =
+        createRule(
+            1L,
+            2020L,
+            ImmutableList.of(ImmutableSet.of(createFilter(FilterModel.FilterType.ROLE, 1L))));
+    RuleModel thirdRule =
+        createRule(
+            2L,
+            2020L,
+            ImmutableList.of(ImmutableSet.of(createFilter(FilterModel.FilterType.SKILL, 3L))));
+    RuleIndex.Matcher matcher =
+        RuleIndex.of(
+                CompiledRuleModel.compileAll(ImmutableList.of(firstRule, secondRule, thirdRule)))
+            .newMatcher();
+    CompactUserModel user = CompactUserModel.of(USER);
+
+    ImmutableList.Builder<RuleModel> testedRulesBuilder = ImmutableList.builder();
+    Assert.assertFalse(
+        matcher.allMatchingRules(
+            user,
+            compiledRule -> {
+              testedRulesBuilder.add(compiledRule.rule());
+              return !compiledRule.rule().equals(secondRule);
+            }));
+    Assert.assertEquals(ImmutableList.of(firstRule, secondRule), testedRulesBuilder.build());
+    Assert.assertTrue(matcher.allMatchingRules(user, compiledRule -> true));
+
+    ImmutableList.Builder<RuleModel> matchingRulesBuilder = ImmutableList.builder();
+    matcher.forEachMatchingRule(
+        user, compiledRule -> matchingRulesBuilder.add(compiledRule.rule()));
+    Assert.assertEquals(
+        ImmutableList.of(firstRule, secondRule, thirdRule), matchingRulesBuilder.build());
+  }
+
+  @Test
+  public void randomRulesTest() {
+    Random random = new Random(2020L);
+    ImmutableList<RuleModel> rules =
+        TestData.createRandomRules(
+            random, NUMBER_OF_RULES, /* numberOfWorkgroups= */ 3, NUMBER_OF_IDS, ID_RARITY);
+    RuleIndex.Matcher matcher = RuleIndex.of(CompiledRuleModel.compileAll(rules)).newMatcher();
+
+    for (UserModel user :
+        TestData.createRandomUsers(
+            random, NUMBER_OF_USERS, /* numberOfWorkgroups= */ 4, NUMBER_OF_IDS, ID_RARITY)) {
+      ImmutableList.Builder<RuleModel> expectedRulesBuilder = ImmutableList.builder();
+      for (RuleModel rule : rules) {
+        if (rule.isUserCoveredByRule(user)) {
+          expectedRulesBuilder.add(rule);
+        }
+      }
+      ImmutableList.Builder<RuleModel> matchingRulesBuilder = ImmutableList.builder();
+      matcher.forEachMatchingRule(
+          CompactUserModel.of(user),
+          compiledRule -> matchingRulesBuilder.add(compiledRule.rule()));
+      Assert.assertEquals(expectedRulesBuilder.build(), matchingRulesBuilder.build());
+    }
+  }
+
+  private static ImmutableList<RuleModel> findMatchingRules(
+      ImmutableList<RuleModel> rules, UserModel user) {
+    ImmutableList.Builder<RuleModel> matchingRulesBuilder = ImmutableList.builder();
+    RuleIndex.of(CompiledRuleModel.compileAll(rules))
+        .newMatcher()
+        .forEachMatchingRule(
+            CompactUserModel.of(user),
+            compiledRule -> matchingRulesBuilder.add(compiledRule.rule()));
+    return matchingRulesBuilder.build();
+  }
+
+  private static RuleModel createRule(
+      long ruleId, long workgroupId, ImmutableList<ImmutableSet<FilterModel>> filters) {
+    return RuleModel.builder()
+        .setRuleId(ruleId)
+        .setWorkforceId(1033L)
+        .setWorkgroupId(workgroupId)
+        .setCasePoolId(0L)
+        .setPermissionSetIds(ImmutableSet.of(0L))
+        .setFilters(filters)
+        .build();
+  }
+
+  private static FilterModel createFilter(FilterModel.FilterType type, long value) {
+    return FilterModel.builder().setType(type).setValue(value).build();
+  }
+}
@@ -0,0 +1,60 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.DataProcessor;
+import src.main.java.com.googleintern.wfm.ruleengine.action.service.RuleSuggestionServiceImplementation;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * RuleSuggestionServiceImplementationTest class is used to test that the parallel mode of
+ * RuleSuggestionServiceImplementation class generates the same rules as the sequential mode.
+ */
+public class RuleSuggestionServiceImplementationTest {
+  private static final int NUMBER_OF_USERS = 3000;
+  private static final int NUMBER_OF_WORKGROUPS = 12;
+  private static final int NUMBER_OF_IDS = 8;
+  private static final int ID_RARITY = 3;
+  private static final ImmutableList<Integer> PARALLELISMS = ImmutableList.of(1, 2, 3, 8);
+
+  @Test
+  public void parallelGenerateRulesTest() {
+    Random random = new Random(2020L);
+    ImmutableList<UserModel> users =
+        DataProcessor.removeConflictUsers(
+            TestData.createRandomUsers(
+                random, NUMBER_OF_USERS, NUMBER_OF_WORKGROUPS, NUMBER_OF_IDS, ID_RARITY));
+    ImmutableSet<RuleModel> expectedRules =
+        new RuleSuggestionServiceImplementation().generateRules(users);
+    Assert.assertFalse(expectedRules.isEmpty());
+
+    for (int parallelism : PARALLELISMS) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        ImmutableSet<RuleModel> rules =
+            new RuleSuggestionServiceImplementation(pool).generateRules(users);
+        Assert.assertEquals(expectedRules.asList(), rules.asList());
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void parallelGenerateRulesWithEmptyInputTest() {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      Assert.assertEquals(
+          ImmutableSet.of(),
+          new RuleSuggestionServiceImplementation(pool).generateRules(ImmutableList.of()));
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
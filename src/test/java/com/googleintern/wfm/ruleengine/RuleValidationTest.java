@@ -3,13 +3,24 @@ package src.test.java.com.googleintern.wfm.ruleengine;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Range;
 import org.junit.Assert;
 import org.junit.Test;
 import src.main.java.com.googleintern.wfm.ruleengine.action.RuleValidation;
 import src.main.java.com.googleintern.wfm.ruleengine.model.*;
 
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 /** RuleValidationTest class is used to test the functionality of RuleValidation class. */
 public class RuleValidationTest {
+  private static final int NUMBER_OF_RANDOM_USERS = 2000;
+  private static final int NUMBER_OF_RANDOM_RULES = 100;
+  private static final int NUMBER_OF_RANDOM_WORKGROUPS = 2;
+  private static final int NUMBER_OF_RANDOM_IDS = 6;
+  private static final int RANDOM_ID_RARITY = 3;
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
   /** Generated Rules */
   private static final ImmutableList<ImmutableSet<FilterModel>> FILTERS_RULE_1 =
       ImmutableList.<ImmutableSet<FilterModel>>builder()
@@ -240,6 +251,15 @@ public class RuleValidationTest {
     Assert.assertEquals(EXPECTED_RULE_VALIDATION_REPORT, ruleValidationReport);
   }
 
+  @Test
+  public void validateInParallelTest() {
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT, new RuleValidation(USERS).validate(RULES, POOL));
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_USERS,
+        new RuleValidation(ImmutableList.of()).validate(RULES, POOL));
+  }
+
   @Test
   public void validateTestWithEmptyUsers() {
     RuleValidation ruleValidation = new RuleValidation(ImmutableList.of());
@@ -261,4 +281,198 @@ public class RuleValidationTest {
     Assert.assertEquals(
         EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_USERS_AND_EMPTY_RULES, ruleValidationReport);
   }
+
+  @Test
+  public void validateWithUserBitmapsTest() {
+    RuleValidation ruleValidation = new RuleValidation(USERS);
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT, ruleValidation.validateWithUserBitmaps(RULES));
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_RULES,
+        ruleValidation.validateWithUserBitmaps(ImmutableSet.of()));
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_USERS,
+        new RuleValidation(ImmutableList.of()).validateWithUserBitmaps(RULES));
+  }
+
+  @Test
+  public void validateLazilyTest() {
+    LazyRuleValidationReport lazyRuleValidationReport =
+        new RuleValidation(USERS).validateLazily(RULES);
+
+    Assert.assertEquals(EXPECTED_RULES_COVERAGE, lazyRuleValidationReport.ruleCoverage(), 0);
+    Assert.assertEquals(
+        USERS_WITH_LESS_ASSIGNED_PERMISSIONS,
+        lazyRuleValidationReport.usersWithLessAssignedPermissions());
+    Assert.assertEquals(
+        USERS_WITH_MORE_ASSIGNED_PERMISSIONS,
+        lazyRuleValidationReport.usersWithMoreAssignedPermissions());
+    Assert.assertEquals(
+        EXPECTED_UNCOVERED_POOL_ASSIGNMENTS, lazyRuleValidationReport.uncoveredPoolAssignments());
+    Assert.assertEquals(EXPECTED_RULE_VALIDATION_REPORT, lazyRuleValidationReport.toReport());
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_RULES,
+        new RuleValidation(USERS).validateLazily(ImmutableSet.of()).toReport());
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_USERS,
+        new RuleValidation(ImmutableList.of()).validateLazily(RULES).toReport());
+  }
+
+  @Test
+  public void calculateRuleCoverageTest() {
+    RuleValidation ruleValidation = new RuleValidation(USERS);
+    Assert.assertEquals(EXPECTED_RULES_COVERAGE, ruleValidation.calculateRuleCoverage(RULES), 0);
+    Assert.assertEquals(
+        EXPECTED_RULE_VALIDATION_REPORT_WITH_EMPTY_RULES.ruleCoverage(),
+        ruleValidation.calculateRuleCoverage(ImmutableSet.of()),
+        0);
+  }
+
+  @Test
+  public void validateWithUserBitmapsOnRandomDataTest() {
+    Random random = new Random(2020L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random,
+            NUMBER_OF_RANDOM_USERS,
+            NUMBER_OF_RANDOM_WORKGROUPS,
+            NUMBER_OF_RANDOM_IDS,
+            RANDOM_ID_RARITY);
+    ImmutableSet<RuleModel> rules =
+        ImmutableSet.copyOf(
+            TestData.createRandomRules(
+                random,
+                NUMBER_OF_RANDOM_RULES,
+                NUMBER_OF_RANDOM_WORKGROUPS,
+                NUMBER_OF_RANDOM_IDS,
+                RANDOM_ID_RARITY));
+    RuleValidation ruleValidation = new RuleValidation(users);
+
+    RuleValidationReport ruleValidationReport = ruleValidation.validate(rules);
+    Assert.assertEquals(ruleValidationReport, ruleValidation.validateWithUserBitmaps(rules));
+    Assert.assertEquals(ruleValidationReport, ruleValidation.validate(rules, POOL));
+    Assert.assertEquals(ruleValidationReport, ruleValidation.validateLazily(rules).toReport());
+    Assert.assertEquals(
+        ruleValidationReport.ruleCoverage(), ruleValidation.calculateRuleCoverage(rules), 0);
+  }
+
+  @Test
+  public void validateSampleTest() {
+    Random random = new Random(2020L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random,
+            NUMBER_OF_RANDOM_USERS,
+            NUMBER_OF_RANDOM_WORKGROUPS,
+            NUMBER_OF_RANDOM_IDS,
+            RANDOM_ID_RARITY);
+    ImmutableSet<RuleModel> rules =
+        ImmutableSet.copyOf(
+            TestData.createRandomRules(
+                random,
+                NUMBER_OF_RANDOM_RULES,
+                NUMBER_OF_RANDOM_WORKGROUPS,
+                NUMBER_OF_RANDOM_IDS,
+                RANDOM_ID_RARITY));
+    RuleValidation ruleValidation = new RuleValidation(users);
+    RuleValidationReport ruleValidationReport = ruleValidation.validate(rules);
+
+    SampledRuleValidationReport sampledRuleValidationReport =
+        ruleValidation.validateSample(rules, NUMBER_OF_RANDOM_USERS / 4, random);
+
+    Assert.assertEquals(NUMBER_OF_RANDOM_USERS, sampledRuleValidationReport.numberOfUsers());
+    Assert.assertEquals(NUMBER_OF_RANDOM_USERS / 4, sampledRuleValidationReport.sampleSize());
+    Assert.assertTrue(
+        sampledRuleValidationReport
+            .ruleCoverageInterval()
+            .contains(ruleValidationReport.ruleCoverage()));
+    Assert.assertTrue(
+        sampledRuleValidationReport
+            .lessAssignedPermissionsRateInterval()
+            .contains(
+                ruleValidationReport.usersWithLessAssignedPermissions().size()
+                    / (double) NUMBER_OF_RANDOM_USERS));
+    Assert.assertTrue(
+        sampledRuleValidationReport
+            .moreAssignedPermissionsRateInterval()
+            .contains(
+                ruleValidationReport.usersWithMoreAssignedPermissions().size()
+                    / (double) NUMBER_OF_RANDOM_USERS));
+  }
+
+  @Test
+  public void validateSampleWithAllUsersTest() {
+    SampledRuleValidationReport sampledRuleValidationReport =
+        new RuleValidation(USERS).validateSample(RULES, USERS.size() * 2, new Random(2020L));
+
+    Assert.assertEquals(USERS.size(), sampledRuleValidationReport.sampleSize());
+    Assert.assertEquals(EXPECTED_RULES_COVERAGE, sampledRuleValidationReport.ruleCoverage(), 1e-9);
+    Assert.assertEquals(
+        USERS_WITH_LESS_ASSIGNED_PERMISSIONS.size() / (double) USERS.size(),
+        sampledRuleValidationReport.lessAssignedPermissionsRate(),
+        1e-9);
+    Assert.assertEquals(
+        USERS_WITH_MORE_ASSIGNED_PERMISSIONS.size() / (double) USERS.size(),
+        sampledRuleValidationReport.moreAssignedPermissionsRate(),
+        1e-9);
+    Assert.assertEquals(
+        Range.singleton(sampledRuleValidationReport.ruleCoverage()),
+        sampledRuleValidationReport.ruleCoverageInterval());
+  }
+
+  @Test
+  public void validateSampleSmallerThanNumberOfWorkgroupsTest() {
+    SampledRuleValidationReport sampledRuleValidationReport =
+        new RuleValidation(USERS).validateSample(RULES, 2, new Random(2020L));
+
+    Assert.assertEquals(2, sampledRuleValidationReport.sampleSize());
+    Assert.assertEquals(USERS.size(), sampledRuleValidationReport.numberOfUsers());
+  }
+
+  @Test
+  public void validateSampleWithDuplicateUsersTest() {
+    ImmutableList<UserModel> usersWithCopies =
+        ImmutableList.<UserModel>builder().addAll(USERS).addAll(USERS).add(USERS.get(5)).build();
+    RuleValidation ruleValidation = new RuleValidation(usersWithCopies);
+    RuleValidationReport ruleValidationReport = ruleValidation.validate(RULES);
+
+    SampledRuleValidationReport sampledRuleValidationReport =
+        ruleValidation.validateSample(RULES, usersWithCopies.size(), new Random(2020L));
+
+    Assert.assertEquals(USERS.size(), sampledRuleValidationReport.sampleSize());
+    Assert.assertEquals(
+        ruleValidationReport.ruleCoverage(), sampledRuleValidationReport.ruleCoverage(), 1e-9);
+    Assert.assertEquals(
+        ruleValidationReport.usersWithLessAssignedPermissions().size()
+            / (double) usersWithCopies.size(),
+        sampledRuleValidationReport.lessAssignedPermissionsRate(),
+        1e-9);
+    Assert.assertEquals(
+        ruleValidationReport.usersWithMoreAssignedPermissions().size()
+            / (double) usersWithCopies.size(),
+        sampledRuleValidationReport.moreAssignedPermissionsRate(),
+        1e-9);
+  }
+
+  @Test
+  public void validateSampleWithUnanimousSampleTest() {
+    ImmutableList.Builder<UserModel> usersBuilder = ImmutableList.builder();
+    for (int userId = 0; userId < 100; userId++) {
+      usersBuilder.add(USERS.get(6).toBuilder().setUserId(userId).build());
+    }
+
+    SampledRuleValidationReport sampledRuleValidationReport =
+        new RuleValidation(usersBuilder.build())
+            .validateSample(ImmutableSet.of(), 10, new Random(2020L));
+
+    Assert.assertEquals(1, sampledRuleValidationReport.ruleCoverage(), 0);
+    Assert.assertTrue(sampledRuleValidationReport.ruleCoverageInterval().lowerEndpoint() < 1);
+    Assert.assertTrue(
+        sampledRuleValidationReport.lessAssignedPermissionsRateInterval().upperEndpoint() > 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void validateSampleTestWithEmptySample() {
+    new RuleValidation(USERS).validateSample(RULES, 0, new Random(2020L));
+  }
 }
@@ -0,0 +1,107 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.SetTrie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/** SetTrieTest class is used to test the functionality of SetTrie class. */
+public class SetTrieTest {
+  private static final int NUMBER_OF_SETS = 2000;
+  private static final int NUMBER_OF_ELEMENTS = 12;
+
+  @Test
+  public void forEachSubsetOfTest() {
+    SetTrie<String> setTrie = new SetTrie<>();
+    setTrie.add(new int[] {}, "empty");
+    setTrie.add(new int[] {1, 3}, "a");
+    setTrie.add(new int[] {1, 3}, "b");
+    setTrie.add(new int[] {1, 2, 3}, "c");
+    setTrie.add(new int[] {2}, "d");
+    setTrie.add(new int[] {4}, "e");
+
+    Assert.assertEquals(
+        ImmutableMultiset.of("empty", "a", "b", "c", "d"),
+        findSubsetsOf(setTrie, new int[] {1, 2, 3}));
+    Assert.assertEquals(
+        ImmutableMultiset.of("empty", "a", "b"), findSubsetsOf(setTrie, new int[] {1, 3}));
+    Assert.assertEquals(
+        ImmutableMultiset.of("empty", "a", "b", "c", "d", "e"),
+        findSubsetsOf(setTrie, new int[] {1, 2, 3, 4}));
+    Assert.assertEquals(ImmutableMultiset.of("empty"), findSubsetsOf(setTrie, new int[] {3}));
+    Assert.assertEquals(6, setTrie.size());
+  }
+
+  @Test
+  public void removeTest() {
+    SetTrie<String> setTrie = new SetTrie<>();
+    setTrie.add(new int[] {1, 3}, "a");
+    setTrie.add(new int[] {1, 3}, "b");
+    setTrie.add(new int[] {1, 3, 5}, "c");
+
+    Assert.assertTrue(setTrie.remove(new int[] {1, 3}, "a"));
+    Assert.assertFalse(setTrie.remove(new int[] {1, 3}, "a"));
+    Assert.assertFalse(setTrie.remove(new int[] {1, 5}, "c"));
+    Assert.assertTrue(setTrie.remove(new int[] {1, 3, 5}, "c"));
+    Assert.assertEquals(ImmutableMultiset.of("b"), findSubsetsOf(setTrie, new int[] {1, 3, 5}));
+    Assert.assertTrue(setTrie.remove(new int[] {1, 3}, "b"));
+    Assert.assertFalse(setTrie.containsSubsetOf(new int[] {1, 3, 5}));
+    Assert.assertEquals(0, setTrie.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsortedSetTest() {
+    new SetTrie<String>().add(new int[] {3, 1}, "a");
+  }
+
+  @Test
+  public void randomSetsTest() {
+    Random random = new Random(2020L);
+    List<int[]> sets = new ArrayList<>();
+    SetTrie<Integer> setTrie = new SetTrie<>();
+    for (int index = 0; index < NUMBER_OF_SETS; index++) {
+      int[] set = createRandomSet(random);
+      sets.add(set);
+      setTrie.add(set, index);
+    }
+    for (int index = 0; index < NUMBER_OF_SETS; index += 2) {
+      Assert.assertTrue(setTrie.remove(sets.get(index), index));
+    }
+    for (int query = 0; query < NUMBER_OF_SETS; query++) {
+      int[] querySet = createRandomSet(random);
+      ImmutableMultiset.Builder<Integer> expectedSubsetsBuilder = ImmutableMultiset.builder();
+      for (int index = 1; index < NUMBER_OF_SETS; index += 2) {
+        if (isSubset(sets.get(index), querySet)) {
+          expectedSubsetsBuilder.add(index);
+        }
+      }
+      ImmutableMultiset<Integer> expectedSubsets = expectedSubsetsBuilder.build();
+      Assert.assertEquals(expectedSubsets, findSubsetsOf(setTrie, querySet));
+      Assert.assertEquals(!expectedSubsets.isEmpty(), setTrie.containsSubsetOf(querySet));
+    }
+  }
+
+  private static <V> ImmutableMultiset<V> findSubsetsOf(SetTrie<V> setTrie, int[] query) {
+    ImmutableMultiset.Builder<V> subsetsBuilder = ImmutableMultiset.builder();
+    setTrie.forEachSubsetOf(query, subsetsBuilder::add);
+    return subsetsBuilder.build();
+  }
+
+  private static int[] createRandomSet(Random random) {
+    return IntStream.range(0, NUMBER_OF_ELEMENTS)
+        .filter(element -> random.nextInt(3) > 0)
+        .toArray();
+  }
+
+  private static boolean isSubset(int[] subset, int[] superset) {
+    ImmutableList<Integer> supersetElements =
+        IntStream.of(superset).boxed().collect(ImmutableList.toImmutableList());
+    return IntStream.of(subset).allMatch(supersetElements::contains);
+  }
+}
@@ -0,0 +1,117 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.Random;
+
+/**
+ * TestData class is used to share test input between test classes: the paths of the test CSV files
+ * and random users, rules and IDs.
+ *
+ * <p>Random users and rules are in workforce 1033, workgroups 2020, 2021, ... and case pool 2020.
+ * All of their IDs are drawn from [0, numberOfIds), each ID with probability 1 / idRarity, so
+ * users with equal IDs and subsets are common.
+ */
+public final class TestData {
+  public static final ImmutableList<String> TEST_CSV_FILE_PATHS =
+      ImmutableList.of(
+          System.getProperty("user.home")
+              + "/Project/wfm-rule-suggestion-engine/src/"
+              + "test/resources/com/googleintern/wfm/ruleengine/csv_parser_test_data.csv",
+          System.getProperty("user.home")
+              + "/Project/wfm-rule-suggestion-engine/src/"
+              + "test/resources/com/googleintern/wfm/ruleengine/csv_grouping_test_data.csv");
+
+  public static final long WORKFORCE_ID = 1033L;
+  public static final long FIRST_WORKGROUP_ID = 2020L;
+  public static final long CASE_POOL_ID = 2020L;
+  public static final int MAX_NUMBER_OF_FILTER_GROUPS = 3;
+
+  private TestData() {}
+
+  /** Return numberOfUsers users with user IDs 0, 1, 2, ... */
+  public static ImmutableList<UserModel> createRandomUsers(
+      Random random, int numberOfUsers, int numberOfWorkgroups, int numberOfIds, int idRarity) {
+    ImmutableList.Builder<UserModel> usersBuilder = ImmutableList.builder();
+    for (int index = 0; index < numberOfUsers; index++) {
+      usersBuilder.add(
+          UserModel.builder()
+              .setUserId(index)
+              .setWorkforceId(WORKFORCE_ID)
+              .setWorkgroupId(FIRST_WORKGROUP_ID + random.nextInt(numberOfWorkgroups))
+              .setRoleIds(createRandomIds(random, numberOfIds, idRarity))
+              .setSkillIds(createRandomIds(random, numberOfIds, idRarity))
+              .setRoleSkillIds(createRandomIds(random, numberOfIds, idRarity))
+              .setPoolAssignments(createRandomPoolAssignments(random, numberOfIds, idRarity))
+              .build());
+    }
+    return usersBuilder.build();
+  }
+
+  /**
+   * Return numberOfRules rules with rule IDs 0, 1, 2, ... Each rule has up to
+   * MAX_NUMBER_OF_FILTER_GROUPS filter groups of ROLE and SKILL filters.
+   */
+  public static ImmutableList<RuleModel> createRandomRules(
+      Random random, int numberOfRules, int numberOfWorkgroups, int numberOfIds, int idRarity) {
+    ImmutableList.Builder<RuleModel> rulesBuilder = ImmutableList.builder();
+    for (int index = 0; index < numberOfRules; index++) {
+      ImmutableList.Builder<ImmutableSet<FilterModel>> filtersBuilder = ImmutableList.builder();
+      for (int group = random.nextInt(MAX_NUMBER_OF_FILTER_GROUPS + 1); group > 0; group--) {
+        ImmutableSet.Builder<FilterModel> groupBuilder = ImmutableSet.builder();
+        for (long id : createRandomIds(random, numberOfIds, idRarity)) {
+          groupBuilder.add(
+              FilterModel.builder()
+                  .setType(
+                      random.nextBoolean()
+                          ? FilterModel.FilterType.ROLE
+                          : FilterModel.FilterType.SKILL)
+                  .setValue(id)
+                  .build());
+        }
+        filtersBuilder.add(groupBuilder.build());
+      }
+      rulesBuilder.add(
+          RuleModel.builder()
+              .setRuleId(index)
+              .setWorkforceId(WORKFORCE_ID)
+              .setWorkgroupId(FIRST_WORKGROUP_ID + random.nextInt(numberOfWorkgroups))
+              .setCasePoolId(CASE_POOL_ID)
+              .setPermissionSetIds(
+                  ImmutableSet.copyOf(createRandomIds(random, numberOfIds, idRarity)))
+              .setFilters(filtersBuilder.build())
+              .build());
+    }
+    return rulesBuilder.build();
+  }
+
+  /** Return pool assignments of CASE_POOL_ID with random permission set IDs. */
+  public static ImmutableSet<PoolAssignmentModel> createRandomPoolAssignments(
+      Random random, int numberOfIds, int idRarity) {
+    ImmutableSet.Builder<PoolAssignmentModel> poolAssignmentsBuilder = ImmutableSet.builder();
+    for (long permissionSetId : createRandomIds(random, numberOfIds, idRarity)) {
+      poolAssignmentsBuilder.add(
+          PoolAssignmentModel.builder()
+              .setCasePoolId(CASE_POOL_ID)
+              .setPermissionSetId(permissionSetId)
+              .build());
+    }
+    return poolAssignmentsBuilder.build();
+  }
+
+  /** Return the IDs in [0, numberOfIds) in order, each picked with probability 1 / idRarity. */
+  public static ImmutableList<Long> createRandomIds(Random random, int numberOfIds, int idRarity) {
+    ImmutableList.Builder<Long> idsBuilder = ImmutableList.builder();
+    for (long id = 0; id < numberOfIds; id++) {
+      if (random.nextInt(idRarity) == 0) {
+        idsBuilder.add(id);
+      }
+    }
+    return idsBuilder.build();
+  }
+}
@@ -0,0 +1,84 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserBitmap;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/** UserBitmapTest class is used to test the functionality of UserBitmap class. */
+public class UserBitmapTest {
+  private static final int SIZE = 1000;
+  private static final int NUMBER_OF_BITMAPS = 200;
+
+  @Test
+  public void ofTest() {
+    UserBitmap bitmap = UserBitmap.of(SIZE, 1, 64, 999);
+    Assert.assertArrayEquals(new int[] {1, 64, 999}, bitmap.toArray());
+    Assert.assertEquals(3, bitmap.cardinality());
+    Assert.assertTrue(bitmap.contains(64));
+    Assert.assertFalse(bitmap.contains(63));
+    Assert.assertFalse(bitmap.contains(SIZE));
+    Assert.assertTrue(UserBitmap.of(SIZE).isEmpty());
+    Assert.assertEquals(70, UserBitmap.all(70).cardinality());
+    Assert.assertArrayEquals(IntStream.range(0, 70).toArray(), UserBitmap.all(70).toArray());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unsortedIndexesTest() {
+    UserBitmap.of(SIZE, 3, 1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void indexOutOfRangeTest() {
+    UserBitmap.of(SIZE, SIZE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void differentSizesTest() {
+    UserBitmap.of(SIZE).and(UserBitmap.of(SIZE + 1));
+  }
+
+  @Test
+  public void randomBitmapsTest() {
+    Random random = new Random(2020L);
+    for (int index = 0; index < NUMBER_OF_BITMAPS; index++) {
+      BitSet first = createRandomBitSet(random);
+      BitSet second = createRandomBitSet(random);
+      UserBitmap firstBitmap = UserBitmap.of(SIZE, first.stream().toArray());
+      UserBitmap secondBitmap = UserBitmap.of(SIZE, second.stream().toArray());
+
+      BitSet expectedAnd = (BitSet) first.clone();
+      expectedAnd.and(second);
+      BitSet expectedOr = (BitSet) first.clone();
+      expectedOr.or(second);
+      Assert.assertArrayEquals(
+          expectedAnd.stream().toArray(), firstBitmap.and(secondBitmap).toArray());
+      Assert.assertArrayEquals(
+          expectedOr.stream().toArray(), firstBitmap.or(secondBitmap).toArray());
+      Assert.assertArrayEquals(
+          expectedOr.stream().toArray(),
+          UserBitmap.orAll(SIZE, ImmutableList.of(firstBitmap, secondBitmap)).toArray());
+      Assert.assertEquals(expectedAnd.cardinality(), firstBitmap.and(secondBitmap).cardinality());
+
+      IntStream.Builder indexesBuilder = IntStream.builder();
+      firstBitmap.forEach(indexesBuilder::add);
+      Assert.assertArrayEquals(first.stream().toArray(), indexesBuilder.build().toArray());
+    }
+  }
+
+  /** Create a bit set that is sparse or dense with equal chance. */
+  private static BitSet createRandomBitSet(Random random) {
+    int density = random.nextBoolean() ? 100 : 2;
+    BitSet bitSet = new BitSet(SIZE);
+    for (int index = 0; index < SIZE; index++) {
+      if (random.nextInt(density) == 0) {
+        bitSet.set(index);
+      }
+    }
+    return bitSet;
+  }
+}
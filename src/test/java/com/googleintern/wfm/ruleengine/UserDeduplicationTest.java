@@ -0,0 +1,155 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.DataProcessor;
+import src.main.java.com.googleintern.wfm.ruleengine.action.RuleValidation;
+import src.main.java.com.googleintern.wfm.ruleengine.action.UserDeduplication;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserEquivalenceClassModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/** UserDeduplicationTest class is used to test the functionality of UserDeduplication class. */
+public class UserDeduplicationTest {
+  private static final PoolAssignmentModel POOL_ASSIGNMENT_0 =
+      PoolAssignmentModel.builder().setCasePoolId(2020L).setPermissionSetId(1111L).build();
+  private static final PoolAssignmentModel POOL_ASSIGNMENT_1 =
+      PoolAssignmentModel.builder().setCasePoolId(2020L).setPermissionSetId(2222L).build();
+
+  private static final UserModel USER_0 =
+      UserModel.builder()
+          .setUserId(0L)
+          .setWorkforceId(1033L)
+          .setWorkgroupId(2020L)
+          .setRoleIds(ImmutableList.of(1111L))
+          .setSkillIds(ImmutableList.of(2222L))
+          .setRoleSkillIds(ImmutableList.of())
+          .setPoolAssignments(ImmutableSet.of(POOL_ASSIGNMENT_0))
+          .build();
+  private static final UserModel USER_1 =
+      USER_0.toBuilder()
+          .setUserId(1L)
+          .setPoolAssignments(ImmutableSet.of(POOL_ASSIGNMENT_1))
+          .build();
+  private static final UserModel USER_2 = USER_0.toBuilder().setUserId(2L).build();
+  private static final UserModel USER_3 = USER_1.toBuilder().setUserId(3L).build();
+  private static final UserModel USER_4 = USER_0.toBuilder().setUserId(4L).build();
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+  private static final int NUMBER_OF_RANDOM_USERS = 2000;
+  private static final int NUMBER_OF_RANDOM_WORKGROUPS = 2;
+  private static final int NUMBER_OF_RANDOM_IDS = 2;
+  private static final int RANDOM_ID_RARITY = 2;
+
+  @Test
+  public void groupByProfileTest() {
+    ImmutableList<UserEquivalenceClassModel> userClasses =
+        UserDeduplication.groupByProfile(
+            ImmutableList.of(USER_0, USER_1, USER_2, USER_3, USER_4));
+
+    Assert.assertEquals(2, userClasses.size());
+    Assert.assertEquals(USER_0, userClasses.get(0).representative());
+    Assert.assertEquals(ImmutableList.of(0L, 2L, 4L), userClasses.get(0).memberUserIds());
+    Assert.assertEquals(ImmutableList.of(USER_0, USER_2, USER_4), userClasses.get(0).members());
+    Assert.assertEquals(USER_1, userClasses.get(1).representative());
+    Assert.assertEquals(2, userClasses.get(1).memberCount());
+    Assert.assertEquals(
+        ImmutableList.of(USER_0, USER_1), UserDeduplication.representatives(userClasses));
+  }
+
+  @Test
+  public void groupByProfileWithDuplicateUserIdsTest() {
+    UserModel userWithDuplicateUserId = USER_2.toBuilder().setUserId(0L).build();
+    ImmutableList<UserEquivalenceClassModel> userClasses =
+        UserDeduplication.groupByProfile(
+            ImmutableList.of(USER_0, USER_1, userWithDuplicateUserId));
+
+    Assert.assertEquals(3, userClasses.size());
+    userClasses.forEach(userClass -> Assert.assertEquals(1, userClass.memberCount()));
+  }
+
+  @Test
+  public void groupByProfileWithEmptyInputTest() {
+    Assert.assertEquals(ImmutableList.of(), UserDeduplication.groupByProfile(ImmutableList.of()));
+  }
+
+  @Test
+  public void removeConflictUserClassesTest() {
+    Random random = new Random(2020L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random,
+            NUMBER_OF_RANDOM_USERS,
+            NUMBER_OF_RANDOM_WORKGROUPS,
+            NUMBER_OF_RANDOM_IDS,
+            RANDOM_ID_RARITY);
+    ImmutableList<UserEquivalenceClassModel> userClasses =
+        UserDeduplication.groupByProfile(users);
+    Assert.assertTrue(userClasses.size() < users.size());
+
+    ImmutableList<UserModel> expectedUsers = DataProcessor.removeConflictUsers(users);
+    Assert.assertEquals(
+        expectedUsers, membersOf(DataProcessor.removeConflictUserClasses(userClasses)));
+    Assert.assertEquals(
+        expectedUsers, membersOf(DataProcessor.removeConflictUserClasses(userClasses, POOL)));
+  }
+
+  @Test
+  public void calculateRuleCoverageTest() {
+    Random random = new Random(2021L);
+    ImmutableList<UserModel> users =
+        TestData.createRandomUsers(
+            random,
+            NUMBER_OF_RANDOM_USERS,
+            NUMBER_OF_RANDOM_WORKGROUPS,
+            NUMBER_OF_RANDOM_IDS,
+            RANDOM_ID_RARITY);
+    ImmutableSet<RuleModel> rules =
+        ImmutableSet.of(
+            RuleModel.builder()
+                .setRuleId(0L)
+                .setWorkforceId(1033L)
+                .setWorkgroupId(2020L)
+                .setCasePoolId(2020L)
+                .setPermissionSetIds(ImmutableSet.of(0L))
+                .setFilters(ImmutableList.of())
+                .build());
+
+    Assert.assertEquals(
+        new RuleValidation(users).validate(rules).ruleCoverage(),
+        RuleValidation.calculateRuleCoverage(UserDeduplication.groupByProfile(users), rules),
+        0);
+
+    ImmutableList<UserModel> usersWithDuplicates =
+        ImmutableList.<UserModel>builder().addAll(users).addAll(users.subList(0, 100)).build();
+    RuleValidation ruleValidationWithDuplicates = new RuleValidation(usersWithDuplicates);
+    double expectedRuleCoverage = ruleValidationWithDuplicates.validate(rules).ruleCoverage();
+    Assert.assertEquals(
+        expectedRuleCoverage, ruleValidationWithDuplicates.calculateRuleCoverage(rules), 0);
+    Assert.assertEquals(
+        expectedRuleCoverage, ruleValidationWithDuplicates.validateLazily(rules).ruleCoverage(), 0);
+    Assert.assertEquals(
+        expectedRuleCoverage,
+        RuleValidation.calculateRuleCoverage(
+            UserDeduplication.groupByProfile(usersWithDuplicates), rules),
+        0);
+  }
+
+  /** Return the members of userClasses in the order of their user IDs. */
+  private static ImmutableList<UserModel> membersOf(
+      ImmutableList<UserEquivalenceClassModel> userClasses) {
+    return userClasses.stream()
+        .flatMap(userClass -> userClass.members().stream())
+        .sorted((first, second) -> Long.compare(first.userId(), second.userId()))
+        .collect(toImmutableList());
+  }
+}
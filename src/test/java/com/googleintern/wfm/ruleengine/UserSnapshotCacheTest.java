@@ -0,0 +1,154 @@
+package src.test.java.com.googleintern.wfm.ruleengine;
+
+import com.google.common.collect.ImmutableList;
+import com.opencsv.exceptions.CsvException;
+import org.junit.Assert;
+import org.junit.Test;
+import src.main.java.com.googleintern.wfm.ruleengine.action.CsvParser;
+import src.main.java.com.googleintern.wfm.ruleengine.action.UserSnapshotCache;
+import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/** UserSnapshotCacheTest class is used to test the functionality of UserSnapshotCache class. */
+public class UserSnapshotCacheTest {
+  private static final String ADDITIONAL_CSV_RECORD =
+      "\n99,[2020],[],[],1024,1122,"
+          + "\"[{\"\"cases_pool_id\"\":\"\"2000543\"\",\"\"permission_set_id\"\":\"\"2048\"\"}]\"";
+
+  @Test
+  public void writeAndLoadSnapshotTest() throws IOException, CsvException {
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      Path directory = Files.createTempDirectory("user_snapshot_cache_test");
+      Path csvFile = Files.copy(Paths.get(csvFilePath), directory.resolve("input.csv"));
+      Path snapshotFile = directory.resolve("input.csv.snapshot");
+      try {
+        ImmutableList<UserModel> expectedUsers = CsvParser.readFromCSVFile(csvFilePath);
+
+        Assert.assertEquals(expectedUsers, UserSnapshotCache.readFromCSVFile(csvFile.toString()));
+        Assert.assertTrue(Files.exists(snapshotFile));
+        byte[] snapshot = Files.readAllBytes(snapshotFile);
+
+        Assert.assertEquals(expectedUsers, UserSnapshotCache.readFromCSVFile(csvFile.toString()));
+        Assert.assertArrayEquals(snapshot, Files.readAllBytes(snapshotFile));
+      } finally {
+        deleteDirectory(directory);
+      }
+    }
+  }
+
+  @Test
+  public void loadSnapshotWithFilterTest() throws IOException, CsvException {
+    for (String csvFilePath : TestData.TEST_CSV_FILE_PATHS) {
+      Path directory = Files.createTempDirectory("user_snapshot_cache_test");
+      Path csvFile = Files.copy(Paths.get(csvFilePath), directory.resolve("input.csv"));
+      try {
+        ImmutableList<UserModel> expectedUsers =
+            CsvParser.readFromCSVFile(csvFilePath, user -> user.workgroupId() > 0);
+
+        Assert.assertEquals(
+            expectedUsers,
+            UserSnapshotCache.readFromCSVFile(csvFile.toString(), user -> user.workgroupId() > 0));
+        Assert.assertEquals(
+            CsvParser.readFromCSVFile(csvFilePath),
+            UserSnapshotCache.readFromCSVFile(csvFile.toString()));
+        Assert.assertEquals(
+            expectedUsers,
+            UserSnapshotCache.readFromCSVFile(csvFile.toString(), user -> user.workgroupId() > 0));
+      } finally {
+        deleteDirectory(directory);
+      }
+    }
+  }
+
+  @Test
+  public void changedInputFileTest() throws IOException, CsvException {
+    Path directory = Files.createTempDirectory("user_snapshot_cache_test");
+    Path csvFile =
+        Files.copy(Paths.get(TestData.TEST_CSV_FILE_PATHS.get(0)), directory.resolve("input.csv"));
+    try {
+      UserSnapshotCache.readFromCSVFile(csvFile.toString());
+      Files.write(
+          csvFile,
+          ADDITIONAL_CSV_RECORD.getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.APPEND);
+
+      ImmutableList<UserModel> expectedUsers = CsvParser.readFromCSVFile(csvFile.toString());
+      Assert.assertEquals(99L, expectedUsers.get(expectedUsers.size() - 1).userId());
+      Assert.assertEquals(expectedUsers, UserSnapshotCache.readFromCSVFile(csvFile.toString()));
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void corruptedSnapshotTest() throws IOException, CsvException {
+    Path directory = Files.createTempDirectory("user_snapshot_cache_test");
+    Path csvFile =
+        Files.copy(Paths.get(TestData.TEST_CSV_FILE_PATHS.get(0)), directory.resolve("input.csv"));
+    Path snapshotFile = directory.resolve("input.csv.snapshot");
+    try {
+      ImmutableList<UserModel> expectedUsers =
+          UserSnapshotCache.readFromCSVFile(csvFile.toString());
+      byte[] snapshot = Files.readAllBytes(snapshotFile);
+      Files.write(snapshotFile, Arrays.copyOf(snapshot, snapshot.length / 2));
+
+      Assert.assertEquals(expectedUsers, UserSnapshotCache.readFromCSVFile(csvFile.toString()));
+      Assert.assertArrayEquals(snapshot, Files.readAllBytes(snapshotFile));
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void unchangedSizeAndLastModifiedTimeTest() throws IOException, CsvException {
+    Path directory = Files.createTempDirectory("user_snapshot_cache_test");
+    Path csvFile =
+        Files.copy(Paths.get(TestData.TEST_CSV_FILE_PATHS.get(0)), directory.resolve("input.csv"));
+    try {
+      ImmutableList<UserModel> expectedUsers =
+          UserSnapshotCache.readFromCSVFile(csvFile.toString());
+      FileTime lastModifiedTime = Files.getLastModifiedTime(csvFile);
+      byte[] content = Files.readAllBytes(csvFile);
+      Arrays.fill(content, (byte) 0);
+      Files.write(csvFile, content);
+      Files.setLastModifiedTime(csvFile, lastModifiedTime);
+
+      Assert.assertEquals(expectedUsers, UserSnapshotCache.readFromCSVFile(csvFile.toString()));
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  @Test
+  public void unwritableSnapshotTest() throws IOException, CsvException {
+    Path directory = Files.createTempDirectory("user_snapshot_cache_test");
+    Path snapshotFile = directory.resolve("missing_directory").resolve("input.csv.snapshot");
+    try {
+      Assert.assertEquals(
+          CsvParser.readFromCSVFile(TestData.TEST_CSV_FILE_PATHS.get(0)),
+          UserSnapshotCache.readFromCSVFile(
+              TestData.TEST_CSV_FILE_PATHS.get(0), snapshotFile, user -> true));
+      Assert.assertFalse(Files.exists(snapshotFile));
+    } finally {
+      deleteDirectory(directory);
+    }
+  }
+
+  private static void deleteDirectory(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+}
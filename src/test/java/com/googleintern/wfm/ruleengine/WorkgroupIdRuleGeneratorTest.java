@@ -10,12 +10,15 @@ import src.main.java.com.googleintern.wfm.ruleengine.action.CsvParser;
 import src.main.java.com.googleintern.wfm.ruleengine.action.generator.RuleIdGenerator;
 import src.main.java.com.googleintern.wfm.ruleengine.action.generator.WorkgroupIdRuleGenerator;
 import src.main.java.com.googleintern.wfm.ruleengine.model.FilterModel;
+import src.main.java.com.googleintern.wfm.ruleengine.model.PoolAssignmentModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.RuleModel;
 import src.main.java.com.googleintern.wfm.ruleengine.model.UserModel;
 
 import java.io.IOException;
+import java.util.stream.LongStream;
 
 import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 /** WorkgroupIdRuleGeneratorTest is used to test the functionality of grouping by workgroup ID. */
 public class WorkgroupIdRuleGeneratorTest {
@@ -25,6 +28,7 @@ public class WorkgroupIdRuleGeneratorTest {
           + "test/resources/com/googleintern/wfm/ruleengine/csv_grouping_test_data.csv";
   private static final Long EXPECTED_FIRST_WORKGROUP_ID = 1122L;
   private static final Long EXPECTED_SECOND_WORKGROUP_ID = 2233L;
+  private static final long NUMBER_OF_PERMISSION_SET_IDS = 100L;
   private static final ImmutableList<ImmutableSet<FilterModel>> emptyFilters =
       ImmutableList.<ImmutableSet<FilterModel>>builder().build();
 
@@ -87,4 +91,66 @@ public class WorkgroupIdRuleGeneratorTest {
             mapByWorkGroupId.get(EXPECTED_SECOND_WORKGROUP_ID), secondRuleIdGenerator);
     Assert.assertEquals(EXPECTED_SECOND_GENERATED_RULES, secondGeneratedRules);
   }
+
+  @Test
+  public void findGeneralRuleForManyPoolAssignmentsTest() {
+    UserModel firstUser = createUser(0L, createPoolAssignments(0L, NUMBER_OF_PERMISSION_SET_IDS));
+    UserModel secondUser =
+        createUser(1L, createPoolAssignments(60L, NUMBER_OF_PERMISSION_SET_IDS + 10L));
+    UserModel thirdUser = createUser(2L, createPoolAssignments(0L, 70L));
+
+    ImmutableSet<RuleModel> generatedRules =
+        WorkgroupIdRuleGenerator.generateWorkgroupIdRules(
+            ImmutableList.of(firstUser, secondUser, thirdUser), new RuleIdGenerator());
+
+    Assert.assertEquals(
+        ImmutableSet.of(
+            RuleModel.builder()
+                .setRuleId(0L)
+                .setWorkforceId(1024L)
+                .setWorkgroupId(EXPECTED_FIRST_WORKGROUP_ID)
+                .setCasePoolId(2000543L)
+                .setPermissionSetIds(
+                    LongStream.range(60L, 70L).boxed().collect(toImmutableSet()))
+                .setFilters(emptyFilters)
+                .build()),
+        generatedRules);
+  }
+
+  @Test
+  public void findNoGeneralRuleWithoutCommonPoolAssignmentsTest() {
+    UserModel firstUser = createUser(0L, createPoolAssignments(0L, NUMBER_OF_PERMISSION_SET_IDS));
+    UserModel secondUser = createUser(1L, ImmutableSet.of());
+    UserModel thirdUser = createUser(2L, createPoolAssignments(0L, NUMBER_OF_PERMISSION_SET_IDS));
+
+    Assert.assertEquals(
+        ImmutableSet.of(),
+        WorkgroupIdRuleGenerator.generateWorkgroupIdRules(
+            ImmutableList.of(firstUser, secondUser, thirdUser), new RuleIdGenerator()));
+  }
+
+  private static UserModel createUser(
+      long userId, ImmutableSet<PoolAssignmentModel> poolAssignments) {
+    return UserModel.builder()
+        .setUserId(userId)
+        .setWorkforceId(1024L)
+        .setWorkgroupId(EXPECTED_FIRST_WORKGROUP_ID)
+        .setRoleIds(ImmutableList.of())
+        .setSkillIds(ImmutableList.of())
+        .setRoleSkillIds(ImmutableList.of())
+        .setPoolAssignments(poolAssignments)
+        .build();
+  }
+
+  /** Return pool assignments of one case pool with Permission Set IDs in [from, to). */
+  private static ImmutableSet<PoolAssignmentModel> createPoolAssignments(long from, long to) {
+    return LongStream.range(from, to)
+        .mapToObj(
+            permissionSetId ->
+                PoolAssignmentModel.builder()
+                    .setCasePoolId(2000543L)
+                    .setPermissionSetId(permissionSetId)
+                    .build())
+        .collect(toImmutableSet());
+  }
 }